@@ -0,0 +1,478 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Reads primitive values, byte blocks and fixed length text fields from a buffer, e.g. a
+ * memory-mapped file. Nothing is copied except for the values which are read. All reads are
+ * checked against the size of the reader and throw an EOFException instead of reading garbage.
+ * Sub-views on a part of the data share the same memory and have their own bounds.
+ * <p>
+ * Since the data is accessed through a ByteBuffer, a reader can address at most 2GB. Larger files
+ * can be read by mapping only the needed region.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class BinaryReader
+{
+    private final ByteBuffer buffer;
+    private final int        size;
+    private int              position = 0;
+
+
+    /**
+     * Constructor. Reads the data from the current position up to the limit of the buffer. The
+     * position of the buffer is not changed.
+     *
+     * @param buffer The buffer to read from
+     * @param order The byte order to use for reading primitive values
+     */
+    public BinaryReader (final ByteBuffer buffer, final ByteOrder order)
+    {
+        this.buffer = buffer.slice ().order (order);
+        this.size = this.buffer.limit ();
+    }
+
+
+    /**
+     * Constructor. Reads the data of the given array.
+     *
+     * @param data The data to read from
+     * @param order The byte order to use for reading primitive values
+     */
+    public BinaryReader (final byte [] data, final ByteOrder order)
+    {
+        this (ByteBuffer.wrap (data), order);
+    }
+
+
+    /**
+     * Maps a complete file into memory.
+     *
+     * @param file The file to map, must be smaller than 2GB
+     * @param order The byte order to use for reading primitive values
+     * @return The reader
+     * @throws IOException Could not map the file
+     */
+    public static BinaryReader map (final Path file, final ByteOrder order) throws IOException
+    {
+        return map (file, 0, -1, order);
+    }
+
+
+    /**
+     * Maps a region of a file into memory.
+     *
+     * @param file The file to map
+     * @param offset The offset of the region in the file
+     * @param length The length of the region, -1 to map up to the end of the file. Must be smaller
+     *            than 2GB
+     * @param order The byte order to use for reading primitive values
+     * @return The reader
+     * @throws IOException Could not map the file or the region is outside of the file
+     */
+    public static BinaryReader map (final Path file, final long offset, final long length, final ByteOrder order) throws IOException
+    {
+        try (final FileChannel channel = FileChannel.open (file, StandardOpenOption.READ))
+        {
+            final long fileSize = channel.size ();
+            final long regionLength = length < 0 ? fileSize - offset : length;
+            if (offset < 0 || regionLength < 0 || offset + regionLength > fileSize)
+                throw new EOFException ("Region " + offset + " + " + regionLength + " is outside of the file size " + fileSize + ": " + file);
+            if (regionLength > Integer.MAX_VALUE)
+                throw new IOException ("Region is too large for mapping: " + file);
+            return new BinaryReader (channel.map (FileChannel.MapMode.READ_ONLY, offset, regionLength), order);
+        }
+    }
+
+
+    /**
+     * Get the byte order which is used for reading primitive values.
+     *
+     * @return The byte order
+     */
+    public ByteOrder getOrder ()
+    {
+        return this.buffer.order ();
+    }
+
+
+    /**
+     * Set the byte order to use for reading primitive values.
+     *
+     * @param order The byte order
+     */
+    public void setOrder (final ByteOrder order)
+    {
+        this.buffer.order (order);
+    }
+
+
+    /**
+     * Get the number of bytes which can be read.
+     *
+     * @return The size
+     */
+    public int size ()
+    {
+        return this.size;
+    }
+
+
+    /**
+     * Get the current read position.
+     *
+     * @return The position
+     */
+    public int getPosition ()
+    {
+        return this.position;
+    }
+
+
+    /**
+     * Set the read position.
+     *
+     * @param position The new position in the range of [0..size]
+     * @throws EOFException The position is outside of the data
+     */
+    public void seek (final int position) throws EOFException
+    {
+        if (position < 0 || position > this.size)
+            throw new EOFException ("Position " + position + " is outside of the size " + this.size);
+        this.position = position;
+    }
+
+
+    /**
+     * Move the read position forward.
+     *
+     * @param count The number of bytes to skip
+     * @throws EOFException The new position is outside of the data
+     */
+    public void skip (final int count) throws EOFException
+    {
+        this.seek (this.position + count);
+    }
+
+
+    /**
+     * Get the number of bytes which are left to read.
+     *
+     * @return The number of bytes
+     */
+    public int remaining ()
+    {
+        return this.size - this.position;
+    }
+
+
+    /**
+     * Check if there are bytes left to read.
+     *
+     * @return True if there are bytes left
+     */
+    public boolean hasRemaining ()
+    {
+        return this.position < this.size;
+    }
+
+
+    /**
+     * Read a signed byte.
+     *
+     * @return The value
+     * @throws EOFException Reached the end of the data
+     */
+    public byte readByte () throws EOFException
+    {
+        return this.buffer.get (this.advance (Byte.BYTES));
+    }
+
+
+    /**
+     * Read an unsigned byte.
+     *
+     * @return The value in the range of [0..255]
+     * @throws EOFException Reached the end of the data
+     */
+    public int readUnsignedByte () throws EOFException
+    {
+        return Byte.toUnsignedInt (this.readByte ());
+    }
+
+
+    /**
+     * Read a signed 16 bit value in the byte order of the reader.
+     *
+     * @return The value
+     * @throws EOFException Reached the end of the data
+     */
+    public short readShort () throws EOFException
+    {
+        return this.buffer.getShort (this.advance (Short.BYTES));
+    }
+
+
+    /**
+     * Read a signed 16 bit value in the given byte order.
+     *
+     * @param order The byte order
+     * @return The value
+     * @throws EOFException Reached the end of the data
+     */
+    public short readShort (final ByteOrder order) throws EOFException
+    {
+        final short value = this.readShort ();
+        return order == this.buffer.order () ? value : Short.reverseBytes (value);
+    }
+
+
+    /**
+     * Read an unsigned 16 bit value in the byte order of the reader.
+     *
+     * @return The value in the range of [0..65535]
+     * @throws EOFException Reached the end of the data
+     */
+    public int readUnsignedShort () throws EOFException
+    {
+        return Short.toUnsignedInt (this.readShort ());
+    }
+
+
+    /**
+     * Read a signed 32 bit value in the byte order of the reader.
+     *
+     * @return The value
+     * @throws EOFException Reached the end of the data
+     */
+    public int readInt () throws EOFException
+    {
+        return this.buffer.getInt (this.advance (Integer.BYTES));
+    }
+
+
+    /**
+     * Read a signed 32 bit value in the given byte order.
+     *
+     * @param order The byte order
+     * @return The value
+     * @throws EOFException Reached the end of the data
+     */
+    public int readInt (final ByteOrder order) throws EOFException
+    {
+        final int value = this.readInt ();
+        return order == this.buffer.order () ? value : Integer.reverseBytes (value);
+    }
+
+
+    /**
+     * Read an unsigned 32 bit value in the byte order of the reader.
+     *
+     * @return The value in the range of [0..2^32-1]
+     * @throws EOFException Reached the end of the data
+     */
+    public long readUnsignedInt () throws EOFException
+    {
+        return Integer.toUnsignedLong (this.readInt ());
+    }
+
+
+    /**
+     * Read a signed 64 bit value in the byte order of the reader.
+     *
+     * @return The value
+     * @throws EOFException Reached the end of the data
+     */
+    public long readLong () throws EOFException
+    {
+        return this.buffer.getLong (this.advance (Long.BYTES));
+    }
+
+
+    /**
+     * Read a signed 64 bit value in the given byte order.
+     *
+     * @param order The byte order
+     * @return The value
+     * @throws EOFException Reached the end of the data
+     */
+    public long readLong (final ByteOrder order) throws EOFException
+    {
+        final long value = this.readLong ();
+        return order == this.buffer.order () ? value : Long.reverseBytes (value);
+    }
+
+
+    /**
+     * Read a 32 bit floating point value in the byte order of the reader.
+     *
+     * @return The value
+     * @throws EOFException Reached the end of the data
+     */
+    public float readFloat () throws EOFException
+    {
+        return this.buffer.getFloat (this.advance (Float.BYTES));
+    }
+
+
+    /**
+     * Read a 64 bit floating point value in the byte order of the reader.
+     *
+     * @return The value
+     * @throws EOFException Reached the end of the data
+     */
+    public double readDouble () throws EOFException
+    {
+        return this.buffer.getDouble (this.advance (Double.BYTES));
+    }
+
+
+    /**
+     * Read a block of bytes into a new array.
+     *
+     * @param length The number of bytes to read
+     * @return The bytes
+     * @throws EOFException Reached the end of the data
+     */
+    public byte [] readBytes (final int length) throws EOFException
+    {
+        final byte [] data = new byte [length];
+        this.readBytes (data, 0, length);
+        return data;
+    }
+
+
+    /**
+     * Read a block of bytes into the given array.
+     *
+     * @param data Where to store the bytes
+     * @param offset The index in the array for the first byte
+     * @param length The number of bytes to read
+     * @throws EOFException Reached the end of the data
+     */
+    public void readBytes (final byte [] data, final int offset, final int length) throws EOFException
+    {
+        this.buffer.get (this.advance (length), data, offset, length);
+    }
+
+
+    /**
+     * Read a 4 character ASCII identifier, e.g. a RIFF chunk ID.
+     *
+     * @return The identifier
+     * @throws EOFException Reached the end of the data
+     */
+    public String readFourCC () throws EOFException
+    {
+        final int start = this.advance (4);
+        final char [] id = new char [4];
+        for (int i = 0; i < 4; i++)
+            id[i] = (char) (this.buffer.get (start + i) & 0xFF);
+        return new String (id);
+    }
+
+
+    /**
+     * Read a text field with a fixed length. The text ends at the first zero character, only the
+     * bytes before it are decoded. The position is moved behind the complete field.
+     *
+     * @param length The length of the field in bytes
+     * @param charset The character set of the text
+     * @return The text
+     * @throws EOFException Reached the end of the data
+     */
+    public String readFixedString (final int length, final Charset charset) throws EOFException
+    {
+        return StringUtils.decodeZeroTerminated (this.buffer, this.advance (length), length, charset);
+    }
+
+
+    /**
+     * Read an ASCII text field with a fixed length. The text ends at the first zero character.
+     *
+     * @param length The length of the field in bytes
+     * @return The text
+     * @throws EOFException Reached the end of the data
+     */
+    public String readFixedString (final int length) throws EOFException
+    {
+        return this.readFixedString (length, StandardCharsets.US_ASCII);
+    }
+
+
+    /**
+     * Get a reader on the next bytes and moves the position behind them. The new reader shares the
+     * memory and the byte order but has its own position and is bounded to the given length.
+     *
+     * @param length The number of bytes of the sub-view
+     * @return The sub-view
+     * @throws EOFException The sub-view would exceed the end of the data
+     */
+    public BinaryReader slice (final int length) throws EOFException
+    {
+        return this.view (this.advance (length), length);
+    }
+
+
+    /**
+     * Get a reader on a part of the data. The new reader shares the memory and the byte order but
+     * has its own position and is bounded to the given length. The position of this reader is not
+     * changed.
+     *
+     * @param offset The offset of the sub-view
+     * @param length The number of bytes of the sub-view
+     * @return The sub-view
+     * @throws EOFException The sub-view would exceed the end of the data
+     */
+    public BinaryReader view (final int offset, final int length) throws EOFException
+    {
+        if (offset < 0 || length < 0 || offset > this.size - length)
+            throw new EOFException ("View " + offset + " + " + length + " is outside of the size " + this.size);
+        return new BinaryReader (this.buffer.slice (offset, length), this.buffer.order ());
+    }
+
+
+    /**
+     * Formats the next bytes as a hex string without changing the position. Useful for debugging.
+     *
+     * @param length The maximum number of bytes to format
+     * @return The hex string
+     */
+    public String toHexString (final int length)
+    {
+        final byte [] data = new byte [Math.min (length, this.remaining ())];
+        this.buffer.get (this.position, data);
+        return StringUtils.formatHexStr (data);
+    }
+
+
+    /**
+     * Checks if the given number of bytes can be read and moves the position behind them.
+     *
+     * @param count The number of bytes to read
+     * @return The position before moving it, which is the start of the bytes to read
+     * @throws EOFException Not enough bytes left
+     */
+    private int advance (final int count) throws EOFException
+    {
+        final int start = this.position;
+        if (count < 0 || count > this.size - start)
+            throw new EOFException ("Reading " + count + " bytes at position " + start + " exceeds the size " + this.size);
+        this.position = start + count;
+        return start;
+    }
+}
@@ -0,0 +1,271 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A pool of direct byte buffers for channel I/O. Direct buffers are expensive to allocate and are
+ * only freed by the garbage collector, but channels read into and write from them without an
+ * additional copy. The buffers are organized in size classes of powers of two from 4KB to 4MB.
+ * Larger buffers are allocated but not pooled. Released buffers are shared between all threads up
+ * to a maximum number of bytes, therefore they survive short-lived worker threads, e.g. of a
+ * fork-join pool which is created for one batch. Only if the shared pool is full, a thread keeps one
+ * buffer of each class for itself.
+ * <p>
+ * Acquiring and releasing a buffer does not lock. A buffer must only be released once and only to
+ * the pool from which it was acquired. To find violations, the pool can run in debug mode, in which
+ * it remembers where each buffer was acquired. Buffers which were not released can then be listed
+ * with {@link #getOutstandingAllocations()}, releasing a foreign buffer or a buffer twice throws an
+ * exception. The debug mode of the default pool is enabled with the system property
+ * "de.mossgrabers.tools.BufferPool.debug".
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class BufferPool
+{
+    private static final int                              MIN_SHIFT         = 12;
+    private static final int                              MAX_SHIFT         = 22;
+    private static final int                              NUMBER_OF_CLASSES = MAX_SHIFT - MIN_SHIFT + 1;
+    private static final long                             DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final BufferPool                       DEFAULT_POOL      = new BufferPool (DEFAULT_MAX_BYTES, Boolean.getBoolean ("de.mossgrabers.tools.BufferPool.debug"));
+    static
+    {
+        // Registered here so that using the metrics does not create the pool
+        final MetricsRegistry metrics = MetricsRegistry.getDefault ();
+        metrics.gauge ("bufferpool.pooled.bytes", DEFAULT_POOL::getPooledBytes);
+        metrics.gauge ("bufferpool.inuse.bytes", DEFAULT_POOL::getInUseBytes);
+    }
+
+    private final List<ConcurrentLinkedQueue<ByteBuffer>> sharedBuffers     = new ArrayList<> (NUMBER_OF_CLASSES);
+    private final ThreadLocal<ByteBuffer []>              localBuffers      = ThreadLocal.withInitial ( () -> new ByteBuffer [NUMBER_OF_CLASSES]);
+    private final long                                    maxPooledBytes;
+    private final boolean                                 isDebug;
+    /** Only used in debug mode: the acquired buffers mapped to where they were acquired. */
+    private final Map<ByteBuffer, Throwable>              outstanding       = Collections.synchronizedMap (new IdentityHashMap<> ());
+
+    private final AtomicLong                              pooledBytes       = new AtomicLong ();
+    private final AtomicLong                              inUseBytes        = new AtomicLong ();
+    private final LongAdder                               allocations       = new LongAdder ();
+    private final LongAdder                               reuses            = new LongAdder ();
+
+
+    /**
+     * Constructor.
+     *
+     * @param maxPooledBytes The maximum number of bytes of the released buffers which are shared
+     *            between the threads, more released buffers are dropped
+     * @param isDebug If true, the places where buffers are acquired are tracked to find leaks
+     */
+    public BufferPool (final long maxPooledBytes, final boolean isDebug)
+    {
+        this.maxPooledBytes = maxPooledBytes;
+        this.isDebug = isDebug;
+        for (int i = 0; i < NUMBER_OF_CLASSES; i++)
+            this.sharedBuffers.add (new ConcurrentLinkedQueue<> ());
+    }
+
+
+    /**
+     * Get the pool which is shared by the I/O functions of this library.
+     *
+     * @return The default pool
+     */
+    public static BufferPool getDefault ()
+    {
+        return DEFAULT_POOL;
+    }
+
+
+    /**
+     * Get a direct buffer. The buffer is cleared, its limit is set to the requested size and its
+     * byte order is big-endian. The capacity might be larger than the requested size. The buffer
+     * must be handed back with {@link #release(ByteBuffer)}, do not release slices or duplicates of
+     * it.
+     *
+     * @param size The minimum size of the buffer
+     * @return The buffer
+     */
+    public ByteBuffer acquire (final int size)
+    {
+        final int sizeClass = getSizeClass (size);
+        ByteBuffer buffer = null;
+        if (sizeClass < NUMBER_OF_CLASSES)
+        {
+            final ByteBuffer [] localCache = this.localBuffers.get ();
+            buffer = localCache[sizeClass];
+            localCache[sizeClass] = null;
+            if (buffer == null)
+            {
+                buffer = this.sharedBuffers.get (sizeClass).poll ();
+                if (buffer != null)
+                    this.pooledBytes.addAndGet (-buffer.capacity ());
+            }
+        }
+
+        if (buffer == null)
+        {
+            buffer = ByteBuffer.allocateDirect (sizeClass < NUMBER_OF_CLASSES ? 1 << (sizeClass + MIN_SHIFT) : size);
+            this.allocations.increment ();
+        }
+        else
+            this.reuses.increment ();
+
+        this.inUseBytes.addAndGet (buffer.capacity ());
+        if (this.isDebug)
+            this.outstanding.put (buffer, new Throwable ("Buffer of " + buffer.capacity () + " bytes acquired by thread " + Thread.currentThread ().getName ()));
+
+        buffer.clear ().limit (size);
+        return buffer.order (ByteOrder.BIG_ENDIAN);
+    }
+
+
+    /**
+     * Hands a buffer back to the pool. The buffer must not be used afterwards.
+     *
+     * @param buffer The buffer which was acquired from this pool and not yet released, ignored if
+     *            null
+     * @throws IllegalArgumentException In debug mode, if the buffer was not acquired from this pool
+     *             or was already released
+     */
+    public void release (final ByteBuffer buffer)
+    {
+        if (buffer == null)
+            return;
+        if (this.isDebug && this.outstanding.remove (buffer) == null)
+            throw new IllegalArgumentException ("The buffer was not acquired from this pool or was already released.");
+
+        final int capacity = buffer.capacity ();
+        this.inUseBytes.addAndGet (-capacity);
+
+        // Only buffers which match a size class exactly are pooled
+        final int sizeClass = getSizeClass (capacity);
+        if (!buffer.isDirect () || buffer.isReadOnly () || sizeClass >= NUMBER_OF_CLASSES || capacity != 1 << (sizeClass + MIN_SHIFT))
+            return;
+
+        if (this.pooledBytes.addAndGet (capacity) <= this.maxPooledBytes)
+        {
+            this.sharedBuffers.get (sizeClass).offer (buffer);
+            return;
+        }
+        this.pooledBytes.addAndGet (-capacity);
+
+        // The shared pool is full, keep one buffer for the current thread
+        final ByteBuffer [] localCache = this.localBuffers.get ();
+        if (localCache[sizeClass] == null)
+            localCache[sizeClass] = buffer;
+    }
+
+
+    /**
+     * Get the number of bytes of the released buffers which are shared between the threads. The
+     * buffers which are kept by a thread for itself (since the shared pool was full) are not
+     * included.
+     *
+     * @return The number of bytes
+     */
+    public long getPooledBytes ()
+    {
+        return this.pooledBytes.get ();
+    }
+
+
+    /**
+     * Get the number of bytes of the buffers which are acquired and not yet released.
+     *
+     * @return The number of bytes
+     */
+    public long getInUseBytes ()
+    {
+        return this.inUseBytes.get ();
+    }
+
+
+    /**
+     * Get the number of newly allocated buffers.
+     *
+     * @return The number of allocations
+     */
+    public long getAllocations ()
+    {
+        return this.allocations.sum ();
+    }
+
+
+    /**
+     * Get the number of acquired buffers which were taken from the pool.
+     *
+     * @return The number of reused buffers
+     */
+    public long getReuses ()
+    {
+        return this.reuses.sum ();
+    }
+
+
+    /**
+     * Check if the pool tracks the acquired buffers.
+     *
+     * @return True if in debug mode
+     */
+    public boolean isDebug ()
+    {
+        return this.isDebug;
+    }
+
+
+    /**
+     * Get the buffers which were acquired but not released. Only available in debug mode.
+     *
+     * @return For each buffer an exception whose stack trace shows where it was acquired
+     */
+    public List<Throwable> getOutstandingAllocations ()
+    {
+        synchronized (this.outstanding)
+        {
+            return new ArrayList<> (this.outstanding.values ());
+        }
+    }
+
+
+    /**
+     * Drops all shared buffers. The memory is freed by the garbage collector.
+     */
+    public void clear ()
+    {
+        for (final ConcurrentLinkedQueue<ByteBuffer> queue: this.sharedBuffers)
+        {
+            ByteBuffer buffer;
+            while ((buffer = queue.poll ()) != null)
+                this.pooledBytes.addAndGet (-buffer.capacity ());
+        }
+    }
+
+
+    /**
+     * Get the index of the smallest size class which can hold the given size.
+     *
+     * @param size The size
+     * @return The index of the size class, NUMBER_OF_CLASSES or more if it is too large for pooling
+     */
+    private static int getSizeClass (final int size)
+    {
+        if (size <= 1 << MIN_SHIFT)
+            return 0;
+        return 32 - Integer.numberOfLeadingZeros (size - 1) - MIN_SHIFT;
+    }
+
+}
@@ -0,0 +1,75 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * A character sequence view on a buffer of single byte (ASCII or ISO-8859-1) characters. The bytes
+ * are not copied.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class ByteCharSequence implements CharSequence
+{
+    private final ByteBuffer buffer;
+    private final int        offset;
+    private final int        length;
+
+
+    /**
+     * Constructor.
+     *
+     * @param buffer The buffer with the characters
+     * @param offset The absolute index of the first character in the buffer
+     * @param length The number of characters
+     */
+    ByteCharSequence (final ByteBuffer buffer, final int offset, final int length)
+    {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public int length ()
+    {
+        return this.length;
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public char charAt (final int index)
+    {
+        if (index < 0 || index >= this.length)
+            throw new IndexOutOfBoundsException (index);
+        return (char) (this.buffer.get (this.offset + index) & 0xFF);
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public CharSequence subSequence (final int start, final int end)
+    {
+        if (start < 0 || end > this.length || start > end)
+            throw new IndexOutOfBoundsException ("start " + start + ", end " + end + ", length " + this.length);
+        return new ByteCharSequence (this.buffer, this.offset + start, end - start);
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString ()
+    {
+        final byte [] data = new byte [this.length];
+        this.buffer.get (this.offset, data);
+        return new String (data, StandardCharsets.ISO_8859_1);
+    }
+}
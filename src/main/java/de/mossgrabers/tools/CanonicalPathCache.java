@@ -0,0 +1,231 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Caches canonical paths. Resolving a canonical path with File.getCanonicalFile needs a file system
+ * call for each part of the path. This cache resolves a path from the cached canonical path of its
+ * parent folder, therefore all files in a folder share the work of resolving the folder and only
+ * need one more call to check if they are a symbolic link themselves.
+ * <p>
+ * The cache does not notice changes in the file system. If folders or links are renamed, moved or
+ * replaced, call {@link #invalidate(Path)} for them (e.g. from the listener of a
+ * {@link FolderMonitor}) or {@link #clear()}.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class CanonicalPathCache
+{
+    private final Map<Path, Path> cache         = new ConcurrentHashMap<> ();
+    private final int             maxEntries;
+    private final boolean         fixNameCase;
+    private final LongAdder       lookups       = new LongAdder ();
+    private final LongAdder       hits          = new LongAdder ();
+    private final LongAdder       resolutions   = new LongAdder ();
+    private final LongAdder       savedSyscalls = new LongAdder ();
+
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries The maximum number of cached paths. The cache is cleared if it gets larger
+     */
+    public CanonicalPathCache (final int maxEntries)
+    {
+        this.maxEntries = maxEntries;
+
+        // The file systems on these platforms ignore case, the canonical path has the stored case
+        final OperatingSystem os = OperatingSystem.get ();
+        this.fixNameCase = os == OperatingSystem.WINDOWS || OperatingSystem.isMacOS ();
+    }
+
+
+    /**
+     * Get the canonical file.
+     *
+     * @param file The file to make canonical
+     * @return The canonical file or the given file if it could not be converted
+     */
+    public File makeCanonical (final File file)
+    {
+        return this.resolve (file.toPath ()).toFile ();
+    }
+
+
+    /**
+     * Get the canonical path.
+     *
+     * @param path The path to make canonical
+     * @return The canonical path or the absolute path if it could not be converted
+     */
+    public Path resolve (final Path path)
+    {
+        this.lookups.increment ();
+
+        final Path absolute = path.toAbsolutePath ();
+        // Relative parts must be resolved after the symbolic links, leave that to the file system
+        for (final Path name: absolute)
+            if ("..".equals (name.toString ()))
+                return FileUtils.makeCanonical (absolute.toFile ()).toPath ();
+
+        final Path normalized = absolute.normalize ();
+        final Path cached = this.cache.get (normalized);
+        if (cached != null)
+        {
+            this.hits.increment ();
+            this.savedSyscalls.add (normalized.getNameCount ());
+            return cached;
+        }
+
+        // Parents which are found in the cache save the calls for their part of the path
+        final int [] calls = new int [1];
+        final Path canonical = this.resolveCached (normalized, calls);
+        this.resolutions.add (calls[0]);
+        this.savedSyscalls.add (Math.max (0, normalized.getNameCount () - calls[0]));
+        return canonical;
+    }
+
+
+    /**
+     * Removes the given path and all paths below it from the cache.
+     *
+     * @param path The path to remove
+     */
+    public void invalidate (final Path path)
+    {
+        final Path absolute = path.toAbsolutePath ().normalize ();
+        this.cache.keySet ().removeIf (key -> key.startsWith (absolute));
+    }
+
+
+    /**
+     * Removes all paths from the cache.
+     */
+    public void clear ()
+    {
+        this.cache.clear ();
+    }
+
+
+    /**
+     * Get the number of cached paths.
+     *
+     * @return The number of paths
+     */
+    public int size ()
+    {
+        return this.cache.size ();
+    }
+
+
+    /**
+     * Get the number of resolved paths.
+     *
+     * @return The number of calls to resolve
+     */
+    public long getLookups ()
+    {
+        return this.lookups.sum ();
+    }
+
+
+    /**
+     * Get the number of paths which were found in the cache. Parent folders which were found while
+     * resolving a path are not counted.
+     *
+     * @return The number of hits, at most the number of lookups
+     */
+    public long getHits ()
+    {
+        return this.hits.sum ();
+    }
+
+
+    /**
+     * Get the number of file system calls which were made to resolve paths.
+     *
+     * @return The number of file system calls
+     */
+    public long getResolutions ()
+    {
+        return this.resolutions.sum ();
+    }
+
+
+    /**
+     * Get the estimated number of file system calls which were saved compared to resolving each
+     * path completely. Assumes one call per part of the path.
+     *
+     * @return The number of saved file system calls
+     */
+    public long getSavedSyscalls ()
+    {
+        return this.savedSyscalls.sum ();
+    }
+
+
+    /**
+     * Resolves the path from the canonical path of its parent, which is resolved recursively.
+     *
+     * @param absolute The absolute and normalized path
+     * @param calls Counts the file system calls at index 0
+     * @return The canonical path
+     */
+    private Path resolveCached (final Path absolute, final int [] calls)
+    {
+        final Path cached = this.cache.get (absolute);
+        if (cached != null)
+            return cached;
+
+        final Path parent = absolute.getParent ();
+        final Path canonical;
+        if (parent == null)
+        {
+            // A root folder
+            calls[0]++;
+            canonical = resolveDirectly (absolute);
+        }
+        else
+        {
+            final Path candidate = this.resolveCached (parent, calls).resolve (absolute.getFileName ());
+            calls[0]++;
+            if (Files.isSymbolicLink (candidate))
+                canonical = resolveDirectly (candidate);
+            else if (this.fixNameCase)
+                canonical = resolveDirectly (candidate, LinkOption.NOFOLLOW_LINKS);
+            else
+                canonical = candidate;
+        }
+
+        if (this.cache.size () >= this.maxEntries)
+            this.cache.clear ();
+        this.cache.put (absolute, canonical);
+        return canonical;
+    }
+
+
+    private static Path resolveDirectly (final Path path, final LinkOption... options)
+    {
+        try
+        {
+            return path.toRealPath (options);
+        }
+        catch (final IOException _)
+        {
+            // Does not exist (yet), like File.getCanonicalFile keep the path
+            return path;
+        }
+    }
+}
@@ -0,0 +1,605 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+
+/**
+ * Calculates checksums of many files in parallel on a fork-join pool. The files are read from
+ * memory-mapped regions, small files are read into buffers of the {@link BufferPool}. The CRC32C
+ * of a large file is calculated in segments on several threads and the segment values are combined
+ * afterwards. SHA-256 cannot be split, therefore a large file is hashed by one thread but several
+ * files are still hashed at the same time.
+ * <p>
+ * If a {@link FileFingerprintCache} with content hashes is given, the CRC32C of files which did not
+ * change is taken from the cache and newly calculated values are stored in it.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class ChecksumService
+{
+    /** The supported checksum algorithms. */
+    public enum Algorithm
+    {
+        /** The CRC32C checksum (4 bytes). */
+        CRC32C,
+        /** The SHA-256 digest (32 bytes). */
+        SHA_256
+    }
+
+
+    /**
+     * The checksum of a file. Two checksums are equal if all components are equal, the value is
+     * compared by its content.
+     *
+     * @param file The file
+     * @param size The size of the file in bytes
+     * @param algorithm The algorithm which calculated the checksum
+     * @param value The checksum, the CRC32C is stored big-endian in 4 bytes
+     * @param isCached True if the value was taken from the fingerprint cache
+     */
+    public record Checksum (Path file, long size, Algorithm algorithm, byte [] value, boolean isCached)
+    {
+        /**
+         * Formats the checksum as a hex string.
+         *
+         * @return The checksum as lower case hex digits without spaces
+         */
+        public String toHexString ()
+        {
+            final StringBuilder sb = new StringBuilder (this.value.length * 2);
+            for (final byte b: this.value)
+                sb.append (Character.forDigit ((b >> 4) & 0xF, 16)).append (Character.forDigit (b & 0xF, 16));
+            return sb.toString ();
+        }
+
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals (final Object obj)
+        {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof final Checksum other))
+                return false;
+            return this.size == other.size && this.isCached == other.isCached && this.algorithm == other.algorithm && this.file.equals (other.file) && Arrays.equals (this.value, other.value);
+        }
+
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode ()
+        {
+            int result = this.file.hashCode ();
+            result = 31 * result + Long.hashCode (this.size);
+            result = 31 * result + this.algorithm.hashCode ();
+            result = 31 * result + Arrays.hashCode (this.value);
+            return 31 * result + Boolean.hashCode (this.isCached);
+        }
+
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString ()
+        {
+            return "Checksum[file=" + this.file + ", size=" + this.size + ", algorithm=" + this.algorithm + ", value=" + this.toHexString () + ", isCached=" + this.isCached + "]";
+        }
+    }
+
+
+    private static final long          SEGMENT_SIZE   = 64L * 1024 * 1024;
+    private static final int           MAP_THRESHOLD  = 1024 * 1024;
+    private static final int           CRC32C_POLY    = 0x82F63B78;
+
+    private final Algorithm            algorithm;
+    private final int                  parallelism;
+    private final FileFingerprintCache fingerprintCache;
+
+    private final LongAdder            files          = new LongAdder ();
+    private final LongAdder            bytes          = new LongAdder ();
+    private final LongAdder            cachedFiles    = new LongAdder ();
+    private final LongAdder            elapsedNanos   = new LongAdder ();
+
+
+    /**
+     * Constructor. Uses as many threads as there are effectively available processors and no
+     * fingerprint cache.
+     *
+     * @param algorithm The checksum algorithm
+     */
+    public ChecksumService (final Algorithm algorithm)
+    {
+        this (algorithm, PlatformCapabilities.getCPUParallelism (), null);
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param algorithm The checksum algorithm
+     * @param parallelism The number of threads to use
+     * @param fingerprintCache The cache from which unchanged CRC32C values are taken and in which
+     *            new ones are stored, might be null. Only used with the CRC32C algorithm and a
+     *            cache which stores content hashes
+     */
+    public ChecksumService (final Algorithm algorithm, final int parallelism, final FileFingerprintCache fingerprintCache)
+    {
+        this.algorithm = algorithm;
+        this.parallelism = Math.max (1, parallelism);
+        this.fingerprintCache = algorithm == Algorithm.CRC32C ? fingerprintCache : null;
+    }
+
+
+    /**
+     * Calculates the checksum of one file.
+     *
+     * @param file The file
+     * @return The checksum
+     * @throws IOException Could not read the file
+     */
+    public Checksum compute (final Path file) throws IOException
+    {
+        final Map<Path, IOException> errors = new ConcurrentHashMap<> (1);
+        final Checksum [] result = new Checksum [1];
+        this.computeAll (List.of (file), checksum -> result[0] = checksum, () -> false, errors);
+        final IOException error = errors.get (file);
+        if (error != null)
+            throw error;
+        return result[0];
+    }
+
+
+    /**
+     * Calculates the checksums of all given files and blocks until all are handed to the consumer.
+     *
+     * @param fileList The files
+     * @param consumer Receives the checksums as soon as they are calculated, is called from several
+     *            threads in parallel
+     * @param cancelled Checked before each file, ends early if it returns true, e.g.
+     *            Task::isCancelled
+     * @return The files which could not be read mapped to the reason, empty if all succeeded
+     */
+    public Map<Path, IOException> computeAll (final Collection<Path> fileList, final Consumer<Checksum> consumer, final BooleanSupplier cancelled)
+    {
+        final Map<Path, IOException> errors = new ConcurrentHashMap<> ();
+        this.computeAll (fileList, consumer, cancelled, errors);
+        return errors;
+    }
+
+
+    /**
+     * Get the number of files which were processed.
+     *
+     * @return The number of files
+     */
+    public long getFiles ()
+    {
+        return this.files.sum ();
+    }
+
+
+    /**
+     * Get the number of bytes which were read.
+     *
+     * @return The number of bytes, without the sizes of the files taken from the cache
+     */
+    public long getBytes ()
+    {
+        return this.bytes.sum ();
+    }
+
+
+    /**
+     * Get the number of files whose checksum was taken from the fingerprint cache.
+     *
+     * @return The number of files
+     */
+    public long getCachedFiles ()
+    {
+        return this.cachedFiles.sum ();
+    }
+
+
+    /**
+     * Get the time spent in {@link #computeAll(Collection, Consumer, BooleanSupplier)} and
+     * {@link #compute(Path)}.
+     *
+     * @return The time in milliseconds
+     */
+    public long getElapsedMillis ()
+    {
+        return this.elapsedNanos.sum () / 1_000_000;
+    }
+
+
+    /**
+     * Get the average throughput.
+     *
+     * @return The number of read bytes per second
+     */
+    public double getThroughput ()
+    {
+        final long nanos = this.elapsedNanos.sum ();
+        return nanos == 0 ? 0 : this.bytes.sum () * 1_000_000_000.0 / nanos;
+    }
+
+
+    /**
+     * Sets all statistics to zero.
+     */
+    public void resetStatistics ()
+    {
+        this.files.reset ();
+        this.bytes.reset ();
+        this.cachedFiles.reset ();
+        this.elapsedNanos.reset ();
+    }
+
+
+    /**
+     * Calculates the CRC32C of a file. The file is split into segments which are processed in
+     * parallel if it is called from a fork-join pool.
+     *
+     * @param file The file
+     * @param size The size of the file
+     * @return The CRC32C value
+     * @throws IOException Could not read the file
+     */
+    static long computeCRC32C (final Path file, final long size) throws IOException
+    {
+        try (final FileChannel channel = FileChannel.open (file, StandardOpenOption.READ))
+        {
+            if (size < MAP_THRESHOLD || !PlatformCapabilities.isMemoryMappingEfficient (file))
+            {
+                final CRC32C crc = new CRC32C ();
+                readChannel (channel, size, crc::update);
+                return crc.getValue ();
+            }
+
+            if (size < 2 * SEGMENT_SIZE)
+                return crc32c (channel, 0, size);
+
+            final List<SegmentTask> segments = new ArrayList<> ();
+            for (long position = 0; position < size; position += SEGMENT_SIZE)
+                segments.add (new SegmentTask (channel, position, Math.min (SEGMENT_SIZE, size - position)));
+            try
+            {
+                RecursiveTask.invokeAll (segments);
+            }
+            catch (final UncheckedIOException ex)
+            {
+                // The fork-join pool might wrap the exception of another thread once more
+                Throwable cause = ex.getCause ();
+                while (cause instanceof final UncheckedIOException wrapped)
+                    cause = wrapped.getCause ();
+                if (cause instanceof final IOException ioEx)
+                    throw ioEx;
+                throw ex;
+            }
+
+            long crc = 0;
+            for (final SegmentTask segment: segments)
+                crc = combineCRC32C (crc, segment.join ().longValue (), segment.length);
+            return crc;
+        }
+    }
+
+
+    /**
+     * Calculates the CRC32C of two concatenated blocks from the CRC32C values of the two blocks.
+     * This is the algorithm of zlib's crc32_combine with the CRC32C polynomial: the first value is
+     * moved over the length of the second block by multiplying it with powers of the CRC operator
+     * matrix (in GF(2)), which are calculated by repeated squaring.
+     *
+     * @param crc1 The CRC32C of the first block
+     * @param crc2 The CRC32C of the second block
+     * @param length2 The length of the second block in bytes
+     * @return The CRC32C of both blocks
+     */
+    static long combineCRC32C (final long crc1, final long crc2, final long length2)
+    {
+        if (length2 <= 0)
+            return crc1;
+
+        final int [] even = new int [32];
+        final int [] odd = new int [32];
+
+        // The operator for one zero bit
+        odd[0] = CRC32C_POLY;
+        int row = 1;
+        for (int n = 1; n < 32; n++)
+        {
+            odd[n] = row;
+            row <<= 1;
+        }
+
+        // The operators for two and four zero bits
+        squareMatrix (even, odd);
+        squareMatrix (odd, even);
+
+        // Apply the operator for each set bit of the length, starting with one zero byte
+        int crc = (int) crc1;
+        long length = length2;
+        do
+        {
+            squareMatrix (even, odd);
+            if ((length & 1) != 0)
+                crc = multiplyMatrix (even, crc);
+            length >>>= 1;
+            if (length == 0)
+                break;
+
+            squareMatrix (odd, even);
+            if ((length & 1) != 0)
+                crc = multiplyMatrix (odd, crc);
+            length >>>= 1;
+        } while (length != 0);
+
+        return Integer.toUnsignedLong (crc ^ (int) crc2);
+    }
+
+
+    private void computeAll (final Collection<Path> fileList, final Consumer<Checksum> consumer, final BooleanSupplier cancelled, final Map<Path, IOException> errors)
+    {
+        final long start = System.nanoTime ();
+        final ForkJoinPool pool = new ForkJoinPool (this.parallelism);
+        try
+        {
+            final List<FileTask> tasks = new ArrayList<> (fileList.size ());
+            for (final Path file: fileList)
+                tasks.add (new FileTask (file, consumer, cancelled, errors));
+            pool.invoke (new RecursiveAction ()
+            {
+                private static final long serialVersionUID = 1L;
+
+
+                /** {@inheritDoc} */
+                @Override
+                protected void compute ()
+                {
+                    invokeAll (tasks);
+                }
+            });
+        }
+        finally
+        {
+            pool.shutdown ();
+            this.elapsedNanos.add (System.nanoTime () - start);
+        }
+    }
+
+
+    private Checksum computeChecksum (final Path file) throws IOException
+    {
+        final BasicFileAttributes attributes = Files.readAttributes (file, BasicFileAttributes.class);
+        final long size = attributes.size ();
+
+        if (this.algorithm == Algorithm.SHA_256)
+        {
+            final byte [] digest = sha256 (file, size);
+            this.bytes.add (size);
+            return new Checksum (file, size, this.algorithm, digest, false);
+        }
+
+        if (this.fingerprintCache != null && !this.fingerprintCache.hasChanged (file))
+        {
+            final FileFingerprintCache.Fingerprint fingerprint = this.fingerprintCache.get (file);
+            if (fingerprint != null && fingerprint.hash () != FileFingerprintCache.NO_HASH)
+            {
+                this.cachedFiles.increment ();
+                return new Checksum (file, size, this.algorithm, toBytes (fingerprint.hash ()), true);
+            }
+        }
+
+        final long crc = computeCRC32C (file, size);
+        this.bytes.add (size);
+        if (this.fingerprintCache != null)
+            this.fingerprintCache.update (file, attributes, crc);
+        return new Checksum (file, size, this.algorithm, toBytes (crc), false);
+    }
+
+
+    private static byte [] sha256 (final Path file, final long size) throws IOException
+    {
+        final MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance ("SHA-256");
+        }
+        catch (final NoSuchAlgorithmException ex)
+        {
+            // Every Java platform must support SHA-256
+            throw new IllegalStateException (ex);
+        }
+
+        try (final FileChannel channel = FileChannel.open (file, StandardOpenOption.READ))
+        {
+            if (size < MAP_THRESHOLD || !PlatformCapabilities.isMemoryMappingEfficient (file))
+                readChannel (channel, size, digest::update);
+            else
+                for (long position = 0; position < size; position += SEGMENT_SIZE)
+                    digest.update (channel.map (FileChannel.MapMode.READ_ONLY, position, Math.min (SEGMENT_SIZE, size - position)));
+        }
+        return digest.digest ();
+    }
+
+
+    /**
+     * Reads a file through a pooled direct buffer instead of mapping it, since it is too small for
+     * mapping or is on a file system on which mapping is not efficient. Large files are read in
+     * blocks.
+     *
+     * @param channel The channel of the file
+     * @param size The size of the file
+     * @param consumer Receives the content of the file block by block
+     * @throws IOException Could not read the file
+     */
+    private static void readChannel (final FileChannel channel, final long size, final Consumer<ByteBuffer> consumer) throws IOException
+    {
+        final int blockSize = (int) Math.min (size, MAP_THRESHOLD);
+        final BufferPool pool = BufferPool.getDefault ();
+        final ByteBuffer buffer = pool.acquire (blockSize);
+        try
+        {
+            long remaining = size;
+            boolean isEndOfFile = false;
+            while (remaining > 0 && !isEndOfFile)
+            {
+                buffer.clear ().limit ((int) Math.min (blockSize, remaining));
+                while (buffer.hasRemaining () && !isEndOfFile)
+                    isEndOfFile = channel.read (buffer) == -1;
+                remaining -= buffer.position ();
+                consumer.accept (buffer.flip ());
+            }
+        }
+        finally
+        {
+            pool.release (buffer);
+        }
+    }
+
+
+    private static long crc32c (final FileChannel channel, final long position, final long length) throws IOException
+    {
+        final CRC32C crc = new CRC32C ();
+        for (long offset = 0; offset < length; offset += SEGMENT_SIZE)
+        {
+            final MappedByteBuffer buffer = channel.map (FileChannel.MapMode.READ_ONLY, position + offset, Math.min (SEGMENT_SIZE, length - offset));
+            crc.update (buffer);
+        }
+        return crc.getValue ();
+    }
+
+
+    private static byte [] toBytes (final long crc)
+    {
+        return new byte []
+        {
+            (byte) (crc >> 24),
+            (byte) (crc >> 16),
+            (byte) (crc >> 8),
+            (byte) crc
+        };
+    }
+
+
+    private static int multiplyMatrix (final int [] matrix, final int vector)
+    {
+        int sum = 0;
+        int vec = vector;
+        for (int i = 0; vec != 0; i++, vec >>>= 1)
+            if ((vec & 1) != 0)
+                sum ^= matrix[i];
+        return sum;
+    }
+
+
+    private static void squareMatrix (final int [] square, final int [] matrix)
+    {
+        for (int n = 0; n < 32; n++)
+            square[n] = multiplyMatrix (matrix, matrix[n]);
+    }
+
+
+    /** Calculates the checksum of one file. */
+    private final class FileTask extends RecursiveAction
+    {
+        private static final long                      serialVersionUID = 1L;
+
+        private final transient Path                   file;
+        private final transient Consumer<Checksum>     consumer;
+        private final transient BooleanSupplier        cancelled;
+        private final transient Map<Path, IOException> errors;
+
+
+        FileTask (final Path file, final Consumer<Checksum> consumer, final BooleanSupplier cancelled, final Map<Path, IOException> errors)
+        {
+            this.file = file;
+            this.consumer = consumer;
+            this.cancelled = cancelled;
+            this.errors = errors;
+        }
+
+
+        /** {@inheritDoc} */
+        @Override
+        protected void compute ()
+        {
+            if (this.cancelled.getAsBoolean ())
+                return;
+
+            final Checksum checksum;
+            try
+            {
+                checksum = ChecksumService.this.computeChecksum (this.file);
+            }
+            catch (final IOException ex)
+            {
+                this.errors.put (this.file, ex);
+                return;
+            }
+            ChecksumService.this.files.increment ();
+            this.consumer.accept (checksum);
+        }
+    }
+
+
+    /** Calculates the CRC32C of one segment of a file. */
+    private static final class SegmentTask extends RecursiveTask<Long>
+    {
+        private static final long           serialVersionUID = 1L;
+
+        private final transient FileChannel channel;
+        private final long                  position;
+        private final long                  length;
+
+
+        SegmentTask (final FileChannel channel, final long position, final long length)
+        {
+            this.channel = channel;
+            this.position = position;
+            this.length = length;
+        }
+
+
+        /** {@inheritDoc} */
+        @Override
+        protected Long compute ()
+        {
+            try
+            {
+                return Long.valueOf (crc32c (this.channel, this.position, this.length));
+            }
+            catch (final IOException ex)
+            {
+                throw new UncheckedIOException (ex);
+            }
+        }
+    }
+}
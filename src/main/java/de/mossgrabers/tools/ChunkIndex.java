@@ -0,0 +1,298 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * An index of the chunks of a RIFF (little-endian), RIFX or IFF (big-endian) file. Scanning reads
+ * only the chunk headers and jumps over the payloads, therefore it touches only a few kilobytes
+ * even of large files. Nested containers (RIFF, LIST, FORM, CAT, PROP) are scanned as well. The
+ * payload of a chunk can then be mapped into memory on its own.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class ChunkIndex
+{
+    /**
+     * A chunk found in the file.
+     *
+     * @param id The 4 character ID of the chunk
+     * @param formType The 4 character type of a container chunk, null if it is not a container
+     * @param offset The position of the chunk header in the file
+     * @param size The size of the payload as stored in the header, includes the form type of a
+     *            container
+     * @param depth The nesting level, 0 for the top container
+     */
+    public record Chunk (String id, String formType, long offset, long size, int depth)
+    {
+        /**
+         * Get the position of the payload in the file.
+         *
+         * @return The position after the chunk header
+         */
+        public long dataOffset ()
+        {
+            return this.offset + HEADER_SIZE;
+        }
+
+
+        /**
+         * Check if the chunk contains other chunks.
+         *
+         * @return True if it is a container
+         */
+        public boolean isContainer ()
+        {
+            return this.formType != null;
+        }
+    }
+
+
+    private static final int         HEADER_SIZE     = 8;
+    private static final int         MAX_DEPTH       = 32;
+    private static final Set<String> RIFF_CONTAINERS = Set.of ("RIFF", "RIFX", "LIST");
+    private static final Set<String> IFF_CONTAINERS  = Set.of ("FORM", "LIST", "CAT ", "PROP");
+
+    private final Path               file;
+    private final ByteOrder          order;
+    private final Set<String>        containers;
+    private final List<Chunk>        chunks          = new ArrayList<> ();
+
+
+    /**
+     * Constructor.
+     *
+     * @param file The scanned file
+     * @param order The byte order of the size fields
+     * @param containers The IDs of the container chunks
+     */
+    private ChunkIndex (final Path file, final ByteOrder order, final Set<String> containers)
+    {
+        this.file = file;
+        this.order = order;
+        this.containers = containers;
+    }
+
+
+    /**
+     * Scans the chunk headers of a RIFF, RIFX or IFF file.
+     *
+     * @param file The file to scan
+     * @return The index of all chunks in the order in which they appear in the file
+     * @throws IOException Could not read the file or it is not a RIFF or IFF file
+     */
+    public static ChunkIndex scan (final Path file) throws IOException
+    {
+        try (final FileChannel channel = FileChannel.open (file, StandardOpenOption.READ))
+        {
+            final ByteBuffer header = ByteBuffer.allocate (HEADER_SIZE + 4);
+            if (!readFully (channel, header, 0))
+                throw new EOFException ("File is too short for a chunk header: " + file);
+
+            final String id = getFourCC (header, 0);
+            final ChunkIndex index;
+            switch (id)
+            {
+                case "RIFF":
+                    index = new ChunkIndex (file, ByteOrder.LITTLE_ENDIAN, RIFF_CONTAINERS);
+                    break;
+                case "RIFX":
+                    index = new ChunkIndex (file, ByteOrder.BIG_ENDIAN, RIFF_CONTAINERS);
+                    break;
+                case "FORM", "LIST", "CAT ":
+                    index = new ChunkIndex (file, ByteOrder.BIG_ENDIAN, IFF_CONTAINERS);
+                    break;
+                default:
+                    throw new IOException ("Not a RIFF or IFF file: " + file);
+            }
+
+            index.scanChunks (channel, header, 0, channel.size (), 0);
+            return index;
+        }
+    }
+
+
+    /**
+     * Get the scanned file.
+     *
+     * @return The file
+     */
+    public Path getFile ()
+    {
+        return this.file;
+    }
+
+
+    /**
+     * Get the byte order of the file.
+     *
+     * @return Little-endian for RIFF files, big-endian for RIFX and IFF files
+     */
+    public ByteOrder getOrder ()
+    {
+        return this.order;
+    }
+
+
+    /**
+     * Get the form type of the top container, e.g. WAVE or AIFF.
+     *
+     * @return The form type
+     */
+    public String getFormType ()
+    {
+        return this.chunks.isEmpty () ? null : this.chunks.get (0).formType ();
+    }
+
+
+    /**
+     * Get all chunks.
+     *
+     * @return The chunks in the order in which they appear in the file
+     */
+    public List<Chunk> getChunks ()
+    {
+        return Collections.unmodifiableList (this.chunks);
+    }
+
+
+    /**
+     * Get the first chunk with the given ID.
+     *
+     * @param id The 4 character ID of the chunk
+     * @return The chunk or null if there is no such chunk
+     */
+    public Chunk find (final String id)
+    {
+        for (final Chunk chunk: this.chunks)
+            if (chunk.id ().equals (id))
+                return chunk;
+        return null;
+    }
+
+
+    /**
+     * Get all chunks with the given ID.
+     *
+     * @param id The 4 character ID of the chunks
+     * @return The chunks, empty if there are none
+     */
+    public List<Chunk> findAll (final String id)
+    {
+        final List<Chunk> result = new ArrayList<> ();
+        for (final Chunk chunk: this.chunks)
+            if (chunk.id ().equals (id))
+                result.add (chunk);
+        return result;
+    }
+
+
+    /**
+     * Get the first container chunk with the given form type, e.g. the LIST chunk of type INFO.
+     *
+     * @param formType The 4 character form type
+     * @return The chunk or null if there is no such chunk
+     */
+    public Chunk findContainer (final String formType)
+    {
+        for (final Chunk chunk: this.chunks)
+            if (formType.equals (chunk.formType ()))
+                return chunk;
+        return null;
+    }
+
+
+    /**
+     * Maps the payload of a chunk into memory. The reader uses the byte order of the file.
+     *
+     * @param chunk The chunk
+     * @return The reader over the payload
+     * @throws IOException Could not map the payload, e.g. if the file was truncated
+     */
+    public BinaryReader mapPayload (final Chunk chunk) throws IOException
+    {
+        return BinaryReader.map (this.file, chunk.dataOffset (), chunk.size (), this.order);
+    }
+
+
+    /**
+     * Reads the headers of all chunks in the given range of the file and descends into containers.
+     *
+     * @param channel The channel to read from
+     * @param header A buffer for reading a chunk header and a form type
+     * @param start The position of the first chunk
+     * @param end The end of the range
+     * @param depth The nesting level of the chunks
+     * @throws IOException Could not read a chunk header
+     */
+    private void scanChunks (final FileChannel channel, final ByteBuffer header, final long start, final long end, final int depth) throws IOException
+    {
+        long position = start;
+        while (end - position >= HEADER_SIZE)
+        {
+            if (!readFully (channel, header, position))
+                return;
+
+            final String id = getFourCC (header, 0);
+            final long size = Integer.toUnsignedLong (header.order (this.order).getInt (4));
+            final long dataStart = position + HEADER_SIZE;
+            // A truncated file (e.g. a recording which was not finished) ends with the data
+            final long dataEnd = Math.min (dataStart + size, end);
+
+            final boolean isContainer = this.containers.contains (id) && size >= 4 && header.limit () == HEADER_SIZE + 4 && depth < MAX_DEPTH;
+            final String formType = isContainer ? getFourCC (header, HEADER_SIZE) : null;
+            this.chunks.add (new Chunk (id, formType, position, size, depth));
+            if (isContainer)
+                this.scanChunks (channel, header, dataStart + 4, dataEnd, depth + 1);
+
+            // Chunks start at even positions
+            position = dataStart + size + (size & 1);
+        }
+    }
+
+
+    /**
+     * Reads a chunk header and the following 4 bytes, which contain the form type of a container.
+     *
+     * @param channel The channel to read from
+     * @param header The buffer to fill, the limit is set to the number of read bytes
+     * @param position The position in the file
+     * @return True if at least a complete chunk header could be read
+     * @throws IOException Could not read from the file
+     */
+    private static boolean readFully (final FileChannel channel, final ByteBuffer header, final long position) throws IOException
+    {
+        header.clear ();
+        while (header.hasRemaining ())
+        {
+            final int read = channel.read (header, position + header.position ());
+            if (read < 0)
+                break;
+        }
+        header.flip ();
+        return header.limit () >= HEADER_SIZE;
+    }
+
+
+    private static String getFourCC (final ByteBuffer buffer, final int offset)
+    {
+        final char [] id = new char [4];
+        for (int i = 0; i < 4; i++)
+            id[i] = (char) (buffer.get (offset + i) & 0xFF);
+        return new String (id);
+    }
+}
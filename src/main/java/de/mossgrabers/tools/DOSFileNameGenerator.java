@@ -0,0 +1,135 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Creates unique, shortened upper case file names for legacy formats, e.g. DOS 8.3 names. The
+ * generator keeps a counter for each shortened name. If a name is already taken, the search for a
+ * free number continues from the last number used for that name instead of starting at 2 again.
+ * Therefore, creating thousands of names from similar stems stays linear. The same input sequence
+ * always creates the same names.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class DOSFileNameGenerator
+{
+    /** The characters which are allowed in DOS file names. */
+    public static final String         DOS_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_-!#$%&'()@^{}~";
+
+    private static final char          REPLACEMENT    = '_';
+
+    private final int                  maxLength;
+    private final boolean []           allowed        = new boolean [128];
+    private final Set<String>          usedNames      = new HashSet<> ();
+    private final Map<String, Integer> counters       = new HashMap<> ();
+
+
+    /**
+     * Constructor for DOS file names with a maximum of 8 characters.
+     */
+    public DOSFileNameGenerator ()
+    {
+        this (8, DOS_CHARACTERS);
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param maxLength The maximum length of the created names
+     * @param allowedCharacters All characters which may appear in a name. Lower case characters are
+     *            converted to upper case before they are checked. All other characters are replaced
+     *            by an underscore. Only ASCII characters are supported.
+     */
+    public DOSFileNameGenerator (final int maxLength, final String allowedCharacters)
+    {
+        if (maxLength < 2)
+            throw new IllegalArgumentException ("The maximum length must be at least 2.");
+
+        this.maxLength = maxLength;
+        for (int i = 0; i < allowedCharacters.length (); i++)
+        {
+            final char c = allowedCharacters.charAt (i);
+            if (c < this.allowed.length)
+                this.allowed[c] = true;
+        }
+    }
+
+
+    /**
+     * Reserve a name which must not be created, e.g. a file which already exists in the target
+     * folder.
+     *
+     * @param name The name to reserve
+     */
+    public void reserve (final String name)
+    {
+        this.usedNames.add (name);
+    }
+
+
+    /**
+     * Creates a unique name from the given file name.
+     *
+     * @param filename The file name to shorten, should not contain the file ending
+     * @return The unique name
+     */
+    public String create (final String filename)
+    {
+        final String stem = this.normalize (filename);
+        if (this.usedNames.add (stem))
+            return stem;
+
+        int counter = this.counters.getOrDefault (stem, Integer.valueOf (1)).intValue ();
+        final StringBuilder candidate = new StringBuilder (this.maxLength);
+        while (true)
+        {
+            counter++;
+            final String counterStr = Integer.toString (counter);
+            if (counterStr.length () >= this.maxLength)
+                throw new IllegalStateException ("No unique name left for: " + filename);
+
+            candidate.setLength (0);
+            candidate.append (stem, 0, Math.min (stem.length (), this.maxLength - counterStr.length ())).append (counterStr);
+            final String name = candidate.toString ();
+            if (this.usedNames.add (name))
+            {
+                this.counters.put (stem, Integer.valueOf (counter));
+                return name;
+            }
+        }
+    }
+
+
+    /**
+     * Removes all used names and counters.
+     */
+    public void reset ()
+    {
+        this.usedNames.clear ();
+        this.counters.clear ();
+    }
+
+
+    private String normalize (final String filename)
+    {
+        final String upper = filename.toUpperCase (Locale.ENGLISH);
+        final int length = Math.min (upper.length (), this.maxLength);
+        final StringBuilder sb = new StringBuilder (length);
+        for (int i = 0; i < length; i++)
+        {
+            final char c = upper.charAt (i);
+            sb.append (c < this.allowed.length && this.allowed[c] ? c : REPLACEMENT);
+        }
+        return sb.toString ();
+    }
+}
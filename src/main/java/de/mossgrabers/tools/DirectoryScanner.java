@@ -0,0 +1,307 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * Walks directory trees in parallel on a fork-join pool. Each directory is listed by its own task,
+ * the files which pass the extension filter are handed to a consumer or a stream. Symbolic links
+ * to files are reported but links to directories are not followed. Directories which cannot be
+ * read are skipped, like File.listFiles does.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class DirectoryScanner
+{
+    private static final Path         END_OF_SCAN  = Path.of ("");
+    private static final long         POLL_TIMEOUT = 100;
+
+    private final FileExtensionFilter filter;
+    private final int                 parallelism;
+
+
+    /**
+     * Constructor. Uses the default I/O parallelism of the platform.
+     *
+     * @param extensions The file extensions to accept, e.g. "wav". If none are given, all files are
+     *            accepted
+     */
+    public DirectoryScanner (final String... extensions)
+    {
+        this (PlatformCapabilities.getIOParallelism (), extensions);
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism The number of threads to use for scanning
+     * @param extensions The file extensions to accept, e.g. "wav". If none are given, all files are
+     *            accepted
+     */
+    public DirectoryScanner (final int parallelism, final String... extensions)
+    {
+        this.filter = new FileExtensionFilter (extensions);
+        this.parallelism = Math.max (1, parallelism);
+    }
+
+
+    /**
+     * Scans the given directory tree and blocks until all files were handed to the consumer.
+     *
+     * @param root The top directory
+     * @param consumer Receives all matching files, is called from several threads in parallel
+     * @param cancelled Checked before each directory and file, the scan ends early if it returns
+     *            true, e.g. Task::isCancelled
+     * @throws IOException The root is not a readable directory
+     */
+    public void scan (final Path root, final Consumer<Path> consumer, final BooleanSupplier cancelled) throws IOException
+    {
+        this.scan (root, (path, _) -> consumer.accept (path), cancelled);
+    }
+
+
+    /**
+     * Scans the given directory tree and blocks until all files were handed to the consumer. The
+     * consumer also receives the attributes of the file which were read while scanning, which
+     * allows to get the size and modification time without another file system call.
+     *
+     * @param root The top directory
+     * @param consumer Receives all matching files and their attributes, is called from several
+     *            threads in parallel
+     * @param cancelled Checked before each directory and file, the scan ends early if it returns
+     *            true, e.g. Task::isCancelled
+     * @throws IOException The root is not a readable directory
+     */
+    public void scan (final Path root, final BiConsumer<Path, BasicFileAttributes> consumer, final BooleanSupplier cancelled) throws IOException
+    {
+        if (!Files.isDirectory (root))
+            throw new NotDirectoryException (root.toString ());
+
+        final ForkJoinPool pool = new ForkJoinPool (this.parallelism);
+        try
+        {
+            pool.invoke (new ScanTask (root, consumer, cancelled));
+        }
+        finally
+        {
+            pool.shutdown ();
+        }
+    }
+
+
+    /**
+     * Scans the given directory tree in the background and returns the matching files as a stream.
+     * The scanner threads wait if the stream is not consumed fast enough, therefore at most
+     * bufferSize paths are held in memory. Closing the stream stops the scan.
+     *
+     * @param root The top directory
+     * @param bufferSize The maximum number of found files which are not yet consumed
+     * @param cancelled Checked before each directory and file, the scan ends early if it returns
+     *            true, e.g. Task::isCancelled
+     * @return The stream of files, must be closed
+     * @throws IOException The root is not a readable directory
+     */
+    public Stream<Path> stream (final Path root, final int bufferSize, final BooleanSupplier cancelled) throws IOException
+    {
+        if (!Files.isDirectory (root))
+            throw new NotDirectoryException (root.toString ());
+
+        final BlockingQueue<Path> queue = new ArrayBlockingQueue<> (Math.max (1, bufferSize));
+        final AtomicBoolean closed = new AtomicBoolean ();
+        final AtomicReference<IOException> error = new AtomicReference<> ();
+        final BooleanSupplier stopped = () -> closed.get () || cancelled.getAsBoolean ();
+
+        final Thread producer = new Thread ( () -> {
+            try
+            {
+                this.scan (root, path -> put (queue, path, stopped), stopped);
+            }
+            catch (final IOException ex)
+            {
+                error.set (ex);
+            }
+            finally
+            {
+                put (queue, END_OF_SCAN, closed::get);
+            }
+        }, "DirectoryScanner");
+        producer.setDaemon (true);
+        producer.start ();
+
+        final Iterator<Path> iterator = new Iterator<> ()
+        {
+            private Path next = null;
+
+
+            /** {@inheritDoc} */
+            @Override
+            public boolean hasNext ()
+            {
+                if (this.next == null)
+                    this.next = take (queue);
+                if (this.next != END_OF_SCAN)
+                    return true;
+                final IOException ex = error.get ();
+                if (ex != null)
+                    throw new UncheckedIOException (ex);
+                return false;
+            }
+
+
+            /** {@inheritDoc} */
+            @Override
+            public Path next ()
+            {
+                if (!this.hasNext ())
+                    throw new NoSuchElementException ();
+                final Path result = this.next;
+                this.next = null;
+                return result;
+            }
+        };
+
+        final Spliterator<Path> spliterator = Spliterators.spliteratorUnknownSize (iterator, Spliterator.NONNULL | Spliterator.DISTINCT);
+        return StreamSupport.stream (spliterator, false).onClose ( () -> {
+            closed.set (true);
+            queue.clear ();
+        });
+    }
+
+
+    private static void put (final BlockingQueue<Path> queue, final Path path, final BooleanSupplier stopped)
+    {
+        try
+        {
+            while (!queue.offer (path, POLL_TIMEOUT, TimeUnit.MILLISECONDS))
+                if (stopped.getAsBoolean ())
+                    return;
+        }
+        catch (final InterruptedException _)
+        {
+            Thread.currentThread ().interrupt ();
+        }
+    }
+
+
+    private static Path take (final BlockingQueue<Path> queue)
+    {
+        try
+        {
+            return queue.take ();
+        }
+        catch (final InterruptedException _)
+        {
+            Thread.currentThread ().interrupt ();
+            return END_OF_SCAN;
+        }
+    }
+
+
+    /** Lists one directory and forks a task for each of its sub-directories. */
+    private final class ScanTask extends RecursiveAction
+    {
+        private static final long                                     serialVersionUID = 1L;
+
+        private final transient Path                                  directory;
+        private final transient BiConsumer<Path, BasicFileAttributes> consumer;
+        private final transient BooleanSupplier                       cancelled;
+
+
+        ScanTask (final Path directory, final BiConsumer<Path, BasicFileAttributes> consumer, final BooleanSupplier cancelled)
+        {
+            this.directory = directory;
+            this.consumer = consumer;
+            this.cancelled = cancelled;
+        }
+
+
+        /** {@inheritDoc} */
+        @Override
+        protected void compute ()
+        {
+            if (this.cancelled.getAsBoolean ())
+                return;
+
+            final List<ScanTask> subTasks = new ArrayList<> ();
+            try (final DirectoryStream<Path> entries = Files.newDirectoryStream (this.directory))
+            {
+                for (final Path entry: entries)
+                {
+                    if (this.cancelled.getAsBoolean ())
+                        break;
+
+                    BasicFileAttributes attributes = readAttributes (entry, LinkOption.NOFOLLOW_LINKS);
+                    if (attributes == null)
+                        continue;
+                    if (attributes.isDirectory ())
+                    {
+                        final ScanTask subTask = new ScanTask (entry, this.consumer, this.cancelled);
+                        subTask.fork ();
+                        subTasks.add (subTask);
+                        continue;
+                    }
+
+                    if (!DirectoryScanner.this.filter.accept (entry.getFileName ().toString ()))
+                        continue;
+                    // Links to files are reported with the attributes of their target
+                    if (attributes.isSymbolicLink ())
+                        attributes = readAttributes (entry);
+                    if (attributes != null && attributes.isRegularFile ())
+                        this.consumer.accept (entry, attributes);
+                }
+            }
+            catch (final IOException | DirectoryIteratorException _)
+            {
+                // Skip unreadable directories
+            }
+
+            for (final ScanTask subTask: subTasks)
+                subTask.join ();
+        }
+
+
+        private static BasicFileAttributes readAttributes (final Path entry, final LinkOption... options)
+        {
+            try
+            {
+                return Files.readAttributes (entry, BasicFileAttributes.class, options);
+            }
+            catch (final IOException _)
+            {
+                // The entry was removed in the meantime or is a broken link
+                return null;
+            }
+        }
+    }
+}
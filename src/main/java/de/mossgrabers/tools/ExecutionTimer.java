@@ -9,14 +9,66 @@ import java.io.PrintStream;
 
 /**
  * The ExecutionTimer class provides a simple way to measure the execution time of code in minutes,
- * seconds, and milliseconds.
+ * seconds, and milliseconds. If requested, the CPU time and the bytes allocated by the measuring
+ * thread are captured as well, if the JVM supports it. This switches on the measuring of the JVM
+ * for all threads, therefore it is off by default. The timer can be stopped on another thread than
+ * the one which started it but then only the wall time is available.
+ * <p>
+ * Optionally, the measurements are also recorded as spans of a {@link Profiler}, which aggregates
+ * them in its report.
  *
  * @author J&uuml;rgen Mo&szlig;graber
  */
 public class ExecutionTimer
 {
-    private long startTime;
-    private long endTime;
+    private final String   name;
+    private final Profiler profiler;
+    private final boolean  measureResources;
+    private Profiler.Span  span;
+    private Thread         startThread;
+    private long           startTime;
+    private long           startCpuNanos;
+    private long           startAllocatedBytes;
+    private long           durationNanos;
+    private long           cpuNanos;
+    private long           allocatedBytes;
+
+
+    /**
+     * Constructor.
+     */
+    public ExecutionTimer ()
+    {
+        this (null, null);
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param name The name of the span in the report of the profiler
+     * @param profiler The profiler in which to record the measurements, might be null
+     */
+    public ExecutionTimer (final String name, final Profiler profiler)
+    {
+        this (name, profiler, false);
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param name The name of the span in the report of the profiler
+     * @param profiler The profiler in which to record the measurements, might be null
+     * @param measureResources If true, the CPU time and the allocated bytes of the thread are
+     *            measured as well
+     */
+    public ExecutionTimer (final String name, final Profiler profiler, final boolean measureResources)
+    {
+        this.name = name == null ? "ExecutionTimer" : name;
+        this.profiler = profiler;
+        this.measureResources = measureResources;
+    }
 
 
     /**
@@ -24,7 +76,17 @@ public class ExecutionTimer
      */
     public void start ()
     {
-        this.startTime = System.currentTimeMillis ();
+        if (this.span != null)
+            this.span.stop ();
+        this.span = this.profiler == null ? null : this.profiler.start (this.name);
+
+        this.startThread = Thread.currentThread ();
+        if (this.measureResources)
+        {
+            this.startCpuNanos = Profiler.getCurrentThreadCpuTime ();
+            this.startAllocatedBytes = Profiler.getCurrentThreadAllocatedBytes ();
+        }
+        this.startTime = System.nanoTime ();
     }
 
 
@@ -33,7 +95,58 @@ public class ExecutionTimer
      */
     public void stop ()
     {
-        this.endTime = System.currentTimeMillis ();
+        this.durationNanos = System.nanoTime () - this.startTime;
+        if (this.measureResources && this.startThread == Thread.currentThread ())
+        {
+            this.cpuNanos = Profiler.getCurrentThreadCpuTime () - this.startCpuNanos;
+            this.allocatedBytes = Profiler.getCurrentThreadAllocatedBytes () - this.startAllocatedBytes;
+        }
+        else
+        {
+            this.cpuNanos = 0;
+            this.allocatedBytes = 0;
+        }
+
+        if (this.span != null)
+        {
+            this.span.stop ();
+            this.span = null;
+        }
+    }
+
+
+    /**
+     * Returns the duration of the measured time in nanoseconds.
+     *
+     * @return the duration in nanoseconds
+     */
+    public long getDurationNanos ()
+    {
+        return this.durationNanos;
+    }
+
+
+    /**
+     * Returns the CPU time which the thread used during the measured time.
+     *
+     * @return the CPU time in nanoseconds, 0 if it was not requested, could not be measured or the
+     *         timer was stopped on another thread
+     */
+    public long getCpuNanos ()
+    {
+        return this.cpuNanos;
+    }
+
+
+    /**
+     * Returns the number of bytes which the thread allocated on the heap during the measured time.
+     *
+     * @return the number of bytes, 0 if it was not requested, could not be measured or the timer
+     *         was stopped on another thread
+     */
+    public long getAllocatedBytes ()
+    {
+        return this.allocatedBytes;
     }
 
 
@@ -44,7 +157,7 @@ public class ExecutionTimer
      */
     public long getDurationMillis ()
     {
-        return this.endTime - this.startTime;
+        return this.durationNanos / 1_000_000;
     }
 
 
@@ -90,4 +203,16 @@ public class ExecutionTimer
     {
         out.println ("Execution time: " + this.getMinutes () + " minutes, " + this.getSeconds () + " seconds, " + this.getMillis () + " milliseconds.");
     }
+
+
+    /**
+     * Print the CPU time and the allocated memory. Only available if the timer was created with
+     * measuring the resources.
+     *
+     * @param out The print stream to write to
+     */
+    public void printResources (final PrintStream out)
+    {
+        out.println ("CPU time: " + this.cpuNanos / 1_000_000 + " milliseconds, allocated: " + this.allocatedBytes / 1024 + " KB.");
+    }
 }
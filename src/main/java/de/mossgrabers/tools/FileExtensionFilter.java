@@ -0,0 +1,68 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.nio.file.Path;
+import java.util.function.Predicate;
+
+
+/**
+ * Accepts file names which end with one of the given extensions. Case is ignored. The test
+ * compares the end of the name with each extension in place, therefore no regular expression and
+ * no temporary strings are used.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class FileExtensionFilter implements Predicate<Path>
+{
+    private final String [] extensions;
+
+
+    /**
+     * Constructor.
+     * <p>
+     * Note that the "." before the extension must not be given!
+     *
+     * @param extensions The file extensions to accept, e.g. "wav". If none are given, all files are
+     *            accepted
+     */
+    public FileExtensionFilter (final String... extensions)
+    {
+        this.extensions = new String [extensions.length];
+        for (int i = 0; i < extensions.length; i++)
+            this.extensions[i] = "." + extensions[i];
+    }
+
+
+    /**
+     * Test if the file name ends with one of the extensions.
+     *
+     * @param fileName The name of the file (without the path)
+     * @return True if accepted
+     */
+    public boolean accept (final String fileName)
+    {
+        if (this.extensions.length == 0)
+            return true;
+
+        final int length = fileName.length ();
+        for (final String extension: this.extensions)
+        {
+            final int extLength = extension.length ();
+            if (length >= extLength && fileName.regionMatches (true, length - extLength, extension, 0, extLength))
+                return true;
+        }
+        return false;
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean test (final Path path)
+    {
+        final Path fileName = path.getFileName ();
+        return fileName != null && this.accept (fileName.toString ());
+    }
+}
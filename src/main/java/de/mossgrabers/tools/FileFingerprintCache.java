@@ -0,0 +1,389 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32C;
+
+
+/**
+ * Remembers the size, modification time and optionally a content hash of files, e.g. the inputs of
+ * a batch conversion. On the next run, the cache tells which files changed since they were last
+ * processed. The check only reads the file attributes. If the modification time changed but the
+ * size did not, the content hash (CRC32C) is compared before reporting a change. The files are
+ * identified by their canonical path, which is resolved with a {@link CanonicalPathCache}.
+ * <p>
+ * The cache can be saved to and loaded from a compact binary index file.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class FileFingerprintCache
+{
+    /** The value of a fingerprint which has no content hash. */
+    public static final long               NO_HASH        = -1;
+
+    private static final int               MAGIC          = 0x46465043;
+    private static final int               VERSION        = 1;
+    private static final int               BUFFER_SIZE    = 64 * 1024;
+
+    private final Map<String, Fingerprint> fingerprints   = new ConcurrentHashMap<> ();
+    private final CanonicalPathCache       canonicalPaths = new CanonicalPathCache (100_000);
+    private final boolean                  useContentHash;
+
+
+    /**
+     * The fingerprint of a file.
+     *
+     * @param size The size of the file in bytes
+     * @param lastModified The modification time in milliseconds since the epoch
+     * @param hash The CRC32C of the content or NO_HASH
+     */
+    public record Fingerprint (long size, long lastModified, long hash)
+    {
+        // Intentionally empty
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param useContentHash If true, a CRC32C of the content is stored for each file, which is
+     *            compared if only the modification time of a file changed
+     */
+    public FileFingerprintCache (final boolean useContentHash)
+    {
+        this.useContentHash = useContentHash;
+    }
+
+
+    /**
+     * Loads a cache from an index file which was written with {@link #save(Path)}.
+     *
+     * @param indexFile The index file
+     * @param useContentHash If true, a CRC32C of the content is stored for each file
+     * @return The loaded cache, empty if the index file does not exist
+     * @throws IOException Could not read the index file or it has an unknown format
+     */
+    public static FileFingerprintCache load (final Path indexFile, final boolean useContentHash) throws IOException
+    {
+        final FileFingerprintCache cache = new FileFingerprintCache (useContentHash);
+        try (final DataInputStream in = new DataInputStream (new BufferedInputStream (Files.newInputStream (indexFile), BUFFER_SIZE)))
+        {
+            if (in.readInt () != MAGIC || in.readInt () != VERSION)
+                throw new IOException ("Not a fingerprint index file: " + indexFile);
+            final int count = in.readInt ();
+            for (int i = 0; i < count; i++)
+            {
+                final String key = in.readUTF ();
+                cache.fingerprints.put (key, new Fingerprint (in.readLong (), in.readLong (), in.readLong ()));
+            }
+        }
+        catch (final NoSuchFileException _)
+        {
+            // No index yet, start with an empty cache
+        }
+        return cache;
+    }
+
+
+    /**
+     * Saves the cache to an index file. The file is replaced atomically.
+     *
+     * @param indexFile The index file
+     * @throws IOException Could not write the index file
+     */
+    public void save (final Path indexFile) throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream (this.fingerprints.size () * 64 + 12);
+        try (final DataOutputStream out = new DataOutputStream (bytes))
+        {
+            final List<Map.Entry<String, Fingerprint>> entries = List.copyOf (this.fingerprints.entrySet ());
+            out.writeInt (MAGIC);
+            out.writeInt (VERSION);
+            out.writeInt (entries.size ());
+            for (final Map.Entry<String, Fingerprint> entry: entries)
+            {
+                final Fingerprint fingerprint = entry.getValue ();
+                out.writeUTF (entry.getKey ());
+                out.writeLong (fingerprint.size ());
+                out.writeLong (fingerprint.lastModified ());
+                out.writeLong (fingerprint.hash ());
+            }
+        }
+        FileUtils.writeAtomically (indexFile, bytes.toByteArray ());
+    }
+
+
+    /**
+     * Checks if a file changed since its fingerprint was stored. Does not update the fingerprint,
+     * except for the modification time if the content hash shows that the content is unchanged.
+     *
+     * @param file The file to check
+     * @return True if the file is not in the cache, does not exist anymore or changed
+     */
+    public boolean hasChanged (final Path file)
+    {
+        final Fingerprint stored = this.fingerprints.get (this.getKey (file));
+        if (stored == null)
+            return true;
+
+        final BasicFileAttributes attributes;
+        try
+        {
+            attributes = Files.readAttributes (file, BasicFileAttributes.class);
+        }
+        catch (final IOException _)
+        {
+            return true;
+        }
+        return this.hasChanged (file, stored, attributes);
+    }
+
+
+    /**
+     * Checks all given files and updates the fingerprints of the changed ones. Unchanged files are
+     * neither hashed nor updated, therefore only the changed files cost more than reading their
+     * attributes. The files are processed in parallel with the default I/O parallelism of the
+     * platform.
+     *
+     * @param files The files to check
+     * @return The files which changed since the last update, the order is not defined
+     */
+    public List<Path> refresh (final Collection<Path> files)
+    {
+        return runParallel ( () -> files.parallelStream ().filter (file -> {
+            final String key = this.getKey (file);
+            final Fingerprint stored = this.fingerprints.get (key);
+            try
+            {
+                final BasicFileAttributes attributes = Files.readAttributes (file, BasicFileAttributes.class);
+                if (stored != null && !this.hasChanged (file, stored, attributes))
+                    return false;
+                this.fingerprints.put (key, this.createFingerprint (file, attributes));
+            }
+            catch (final IOException _)
+            {
+                this.fingerprints.remove (key);
+            }
+            return true;
+        }).toList ());
+    }
+
+
+    /**
+     * Stores the current fingerprint of a file.
+     *
+     * @param file The file
+     * @throws IOException Could not read the file
+     */
+    public void update (final Path file) throws IOException
+    {
+        this.update (file, Files.readAttributes (file, BasicFileAttributes.class));
+    }
+
+
+    /**
+     * Stores the current fingerprint of a file. Uses the given attributes, e.g. the ones which were
+     * read by the {@link DirectoryScanner}, instead of reading them again.
+     *
+     * @param file The file
+     * @param attributes The attributes of the file
+     * @throws IOException Could not read the file
+     */
+    public void update (final Path file, final BasicFileAttributes attributes) throws IOException
+    {
+        this.fingerprints.put (this.getKey (file), this.createFingerprint (file, attributes));
+    }
+
+
+    /**
+     * Stores the fingerprint of a file with a content hash which was already calculated, e.g. by
+     * the {@link ChecksumService}.
+     *
+     * @param file The file
+     * @param attributes The attributes of the file
+     * @param hash The CRC32C of the content of the file
+     */
+    void update (final Path file, final BasicFileAttributes attributes, final long hash)
+    {
+        final long storedHash = this.useContentHash ? hash : NO_HASH;
+        this.fingerprints.put (this.getKey (file), new Fingerprint (attributes.size (), attributes.lastModifiedTime ().toMillis (), storedHash));
+    }
+
+
+    /**
+     * Stores the current fingerprints of all given files. The files are processed in parallel with
+     * the default I/O parallelism of the platform. Files which cannot be read are removed from the
+     * cache.
+     *
+     * @param files The files
+     */
+    public void updateAll (final Collection<Path> files)
+    {
+        runParallel ( () -> {
+            files.parallelStream ().forEach (file -> {
+                try
+                {
+                    this.update (file);
+                }
+                catch (final IOException _)
+                {
+                    this.remove (file);
+                }
+            });
+            return null;
+        });
+    }
+
+
+    /**
+     * Get the stored fingerprint of a file.
+     *
+     * @param file The file
+     * @return The fingerprint or null if the file is not in the cache
+     */
+    public Fingerprint get (final Path file)
+    {
+        return this.fingerprints.get (this.getKey (file));
+    }
+
+
+    /**
+     * Removes a file from the cache.
+     *
+     * @param file The file
+     */
+    public void remove (final Path file)
+    {
+        this.fingerprints.remove (this.getKey (file));
+    }
+
+
+    /**
+     * Removes all files from the cache.
+     */
+    public void clear ()
+    {
+        this.fingerprints.clear ();
+    }
+
+
+    /**
+     * Get the number of files in the cache.
+     *
+     * @return The number of files
+     */
+    public int size ()
+    {
+        return this.fingerprints.size ();
+    }
+
+
+    private boolean hasChanged (final Path file, final Fingerprint stored, final BasicFileAttributes attributes)
+    {
+        final long size = attributes.size ();
+        if (size != stored.size ())
+            return true;
+        final long lastModified = attributes.lastModifiedTime ().toMillis ();
+        if (lastModified == stored.lastModified ())
+            return false;
+        if (!this.useContentHash || stored.hash () == NO_HASH)
+            return true;
+
+        // Only the time changed (e.g. the file was copied), compare the content
+        try
+        {
+            if (computeHash (file) != stored.hash ())
+                return true;
+            this.fingerprints.put (this.getKey (file), new Fingerprint (size, lastModified, stored.hash ()));
+            return false;
+        }
+        catch (final IOException _)
+        {
+            return true;
+        }
+    }
+
+
+    private Fingerprint createFingerprint (final Path file, final BasicFileAttributes attributes) throws IOException
+    {
+        final long hash = this.useContentHash ? computeHash (file) : NO_HASH;
+        return new Fingerprint (attributes.size (), attributes.lastModifiedTime ().toMillis (), hash);
+    }
+
+
+    /**
+     * Calculates the CRC32C of the content of a file.
+     *
+     * @param file The file
+     * @return The CRC32C value
+     * @throws IOException Could not read the file
+     */
+    static long computeHash (final Path file) throws IOException
+    {
+        final CRC32C crc = new CRC32C ();
+        final BufferPool pool = BufferPool.getDefault ();
+        final ByteBuffer buffer = pool.acquire (BUFFER_SIZE);
+        try (final FileChannel channel = FileChannel.open (file, StandardOpenOption.READ))
+        {
+            while (channel.read (buffer) != -1)
+            {
+                buffer.flip ();
+                crc.update (buffer);
+                buffer.clear ();
+            }
+        }
+        finally
+        {
+            pool.release (buffer);
+        }
+        return crc.getValue ();
+    }
+
+
+    private String getKey (final Path file)
+    {
+        return this.canonicalPaths.resolve (file).toString ();
+    }
+
+
+    /**
+     * Runs a parallel stream operation in a fork-join pool with the I/O parallelism of the
+     * platform instead of the common pool, which is sized for CPU-bound work.
+     *
+     * @param <T> The type of the result
+     * @param operation The operation which uses a parallel stream
+     * @return The result of the operation
+     */
+    private static <T> T runParallel (final Callable<T> operation)
+    {
+        final ForkJoinPool pool = new ForkJoinPool (PlatformCapabilities.getIOParallelism ());
+        try
+        {
+            return pool.submit (operation).join ();
+        }
+        finally
+        {
+            pool.shutdown ();
+        }
+    }
+}
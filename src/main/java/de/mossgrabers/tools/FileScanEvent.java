@@ -0,0 +1,31 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Flight recorder event for scanning a folder tree.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+@Name("de.mossgrabers.FileScan")
+@Label("File Scan")
+@Category({"UiTools", "File"})
+@Description("Scanning of a folder tree for files")
+class FileScanEvent extends Event
+{
+    @Label("Folder")
+    String folder;
+
+    @Label("Files")
+    @Description("The number of found files")
+    long   files;
+}
@@ -0,0 +1,253 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+
+/**
+ * Copies and moves files with FileChannel.transferTo, which lets the operating system copy the data
+ * without moving it through the Java heap. The data is transferred in slices to report the
+ * progress and to check for cancellation in between. If source or target are on a file system on
+ * which transferTo is not efficient (see {@link PlatformCapabilities#isTransferToEfficient(Path)}),
+ * the data is copied through a pooled direct buffer instead.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class FileTransfer
+{
+    private static final long SLICE_SIZE  = 8L * 1024 * 1024;
+    private static final int  BUFFER_SIZE = 1024 * 1024;
+
+
+    /**
+     * Private due to helper class.
+     */
+    private FileTransfer ()
+    {
+        // Intentionally empty
+    }
+
+
+    /**
+     * Copies or moves several files in parallel.
+     *
+     * @param files The source files mapped to their target files
+     * @param move Moves the files if true otherwise copies them
+     * @param parallelism The number of files to transfer at the same time
+     * @param listener Gets notified about the number of transferred bytes of all files
+     * @param cancelled Checked after each slice, stops all transfers if it returns true
+     * @return True if all files were transferred, false if cancelled
+     * @throws IOException Could not transfer a file, the other transfers are stopped
+     */
+    static boolean transferAll (final Map<Path, Path> files, final boolean move, final int parallelism, final ProgressListener listener, final BooleanSupplier cancelled) throws IOException
+    {
+        long totalBytes = 0;
+        for (final Path source: files.keySet ())
+            totalBytes += Files.size (source);
+        final long total = totalBytes;
+
+        final AtomicLong doneBytes = new AtomicLong ();
+        final AtomicBoolean failed = new AtomicBoolean ();
+        final BooleanSupplier stopped = () -> failed.get () || cancelled.getAsBoolean ();
+
+        final ExecutorService executor = Executors.newFixedThreadPool (Math.max (1, Math.min (parallelism, files.size ())));
+        try
+        {
+            final List<Future<Boolean>> results = new ArrayList<> (files.size ());
+            for (final Map.Entry<Path, Path> entry: files.entrySet ())
+                results.add (executor.submit ( () -> {
+                    final long [] lastDone = new long [1];
+                    final ProgressListener fileListener = (done, _) -> {
+                        listener.progressChanged (doneBytes.addAndGet (done - lastDone[0]), total);
+                        lastDone[0] = done;
+                    };
+                    try
+                    {
+                        return Boolean.valueOf (transfer (entry.getKey (), entry.getValue (), move, fileListener, stopped));
+                    }
+                    catch (final IOException ex)
+                    {
+                        failed.set (true);
+                        throw ex;
+                    }
+                }));
+
+            boolean completed = true;
+            IOException error = null;
+            for (final Future<Boolean> result: results)
+            {
+                try
+                {
+                    completed &= result.get ().booleanValue ();
+                }
+                catch (final ExecutionException ex)
+                {
+                    if (error == null)
+                        error = ex.getCause () instanceof final IOException ioEx ? ioEx : new IOException (ex.getCause ());
+                }
+            }
+            if (error != null)
+                throw error;
+            return completed;
+        }
+        catch (final InterruptedException _)
+        {
+            Thread.currentThread ().interrupt ();
+            failed.set (true);
+            return false;
+        }
+        finally
+        {
+            executor.shutdown ();
+        }
+    }
+
+
+    /**
+     * Copies or moves one file. A move within the same file store is a simple rename. Otherwise the
+     * file is copied and the source is removed afterwards.
+     *
+     * @param source The file to transfer
+     * @param target The target file, is replaced if it exists
+     * @param move Moves the file if true otherwise copies it
+     * @param listener Gets notified about the number of transferred bytes
+     * @param cancelled Checked after each slice, stops the transfer if it returns true
+     * @return True if the file was transferred, false if cancelled
+     * @throws IOException Could not transfer the file
+     */
+    static boolean transfer (final Path source, final Path target, final boolean move, final ProgressListener listener, final BooleanSupplier cancelled) throws IOException
+    {
+        final MetricsRegistry metrics = MetricsRegistry.getDefault ();
+        if (move && isSameFileStore (source, target))
+        {
+            final long size = Files.size (source);
+            Files.move (source, target, StandardCopyOption.REPLACE_EXISTING);
+            listener.progressChanged (size, size);
+            metrics.count ("file.rename.files");
+            return true;
+        }
+
+        final long startTime = metrics.startTimer ();
+        if (!copy (source, target, listener, cancelled))
+            return false;
+        if (move)
+            Files.delete (source);
+        metrics.stopTimer ("file.transfer", startTime);
+        metrics.count ("file.transfer.files");
+        if (metrics.isEnabled ())
+            metrics.count ("file.transfer.bytes", Files.size (target));
+        return true;
+    }
+
+
+    private static boolean copy (final Path source, final Path target, final ProgressListener listener, final BooleanSupplier cancelled) throws IOException
+    {
+        if (Files.exists (target) && Files.isSameFile (source, target))
+            throw new IOException ("Source and target are the same file: " + source);
+
+        boolean completed = false;
+        try (final FileChannel in = FileChannel.open (source, StandardOpenOption.READ); final FileChannel out = FileChannel.open (target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            final long size = in.size ();
+            final boolean useTransferTo = PlatformCapabilities.isTransferToEfficient (source) && PlatformCapabilities.isTransferToEfficient (target);
+            long position = 0;
+            while (position < size)
+            {
+                if (cancelled.getAsBoolean ())
+                    return false;
+                final long length = Math.min (SLICE_SIZE, size - position);
+                if (useTransferTo)
+                {
+                    final long transferred = in.transferTo (position, length, out);
+                    if (transferred <= 0)
+                        throw new EOFException ("The source file was truncated while copying.");
+                    position += transferred;
+                }
+                else
+                    position += copySlice (in, out, position, length);
+                listener.progressChanged (position, size);
+            }
+            completed = true;
+        }
+        finally
+        {
+            if (!completed)
+                Files.deleteIfExists (target);
+        }
+
+        Files.setLastModifiedTime (target, Files.getLastModifiedTime (source));
+        return true;
+    }
+
+
+    /**
+     * Copies a part of a file through a pooled direct buffer.
+     *
+     * @param in The source channel
+     * @param out The target channel
+     * @param position The position in the files at which to start
+     * @param length The number of bytes to copy
+     * @return The number of copied bytes
+     * @throws IOException Could not read or write a file or the source file is shorter than
+     *             expected
+     */
+    private static long copySlice (final FileChannel in, final FileChannel out, final long position, final long length) throws IOException
+    {
+        final BufferPool pool = BufferPool.getDefault ();
+        final ByteBuffer buffer = pool.acquire (BUFFER_SIZE);
+        try
+        {
+            long copied = 0;
+            while (copied < length)
+            {
+                buffer.clear ().limit ((int) Math.min (BUFFER_SIZE, length - copied));
+                final int read = in.read (buffer, position + copied);
+                if (read < 0)
+                    throw new EOFException ("The source file was truncated while copying.");
+                buffer.flip ();
+                while (buffer.hasRemaining ())
+                    out.write (buffer, position + copied + buffer.position ());
+                copied += read;
+            }
+            return copied;
+        }
+        finally
+        {
+            pool.release (buffer);
+        }
+    }
+
+
+    private static boolean isSameFileStore (final Path source, final Path target)
+    {
+        try
+        {
+            final Path targetFolder = target.toAbsolutePath ().getParent ();
+            return targetFolder != null && Files.getFileStore (source).equals (Files.getFileStore (targetFolder));
+        }
+        catch (final IOException _)
+        {
+            return false;
+        }
+    }
+}
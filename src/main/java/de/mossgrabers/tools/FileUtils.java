@@ -4,10 +4,36 @@
 
 package de.mossgrabers.tools;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 
 /**
@@ -17,6 +43,10 @@ import java.util.Set;
  */
 public final class FileUtils
 {
+    private static final int WRITE_BUFFER_SIZE     = 256 * 1024;
+    private static final int VALIDATION_CHUNK_SIZE = 8192;
+
+
     /**
      * Private due to helper class.
      */
@@ -72,25 +102,568 @@ public final class FileUtils
     }
 
 
+    /**
+     * Finds all files with one of the given extensions in the given folder and all of its
+     * sub-folders. The folders are scanned in parallel.
+     *
+     * @param folder The top folder
+     * @param consumer Receives all matching files, is called from several threads in parallel
+     * @param cancelled Checked before each folder and file, the scan ends early if it returns true,
+     *            e.g. Task::isCancelled
+     * @param extensions The file extensions to accept, e.g. "wav". If none are given, all files are
+     *            accepted
+     * @throws IOException The folder is not a readable directory
+     */
+    public static void scanFiles (final Path folder, final Consumer<Path> consumer, final BooleanSupplier cancelled, final String... extensions) throws IOException
+    {
+        final MetricsRegistry metrics = MetricsRegistry.getDefault ();
+        final long startTime = metrics.startTimer ();
+        final FileScanEvent event = new FileScanEvent ();
+        event.begin ();
+
+        // Only count the files if someone is interested
+        final LongAdder files = new LongAdder ();
+        final Consumer<Path> countingConsumer = metrics.isEnabled () || event.isEnabled () ? path -> {
+            files.increment ();
+            consumer.accept (path);
+        } : consumer;
+        new DirectoryScanner (extensions).scan (folder, countingConsumer, cancelled);
+
+        metrics.stopTimer ("file.scan", startTime);
+        metrics.count ("file.scan.files", files.sum ());
+        event.end ();
+        if (event.shouldCommit ())
+        {
+            event.folder = folder.toString ();
+            event.files = files.sum ();
+            event.commit ();
+        }
+    }
+
+
+    /**
+     * Finds all files with one of the given extensions in the given folder and all of its
+     * sub-folders. The folders are scanned in parallel in the background while the stream is
+     * consumed. The scan waits if more than bufferSize files are not yet consumed.
+     *
+     * @param folder The top folder
+     * @param bufferSize The maximum number of found files which are not yet consumed
+     * @param cancelled Checked before each folder and file, the scan ends early if it returns true,
+     *            e.g. Task::isCancelled
+     * @param extensions The file extensions to accept, e.g. "wav". If none are given, all files are
+     *            accepted
+     * @return The stream of files, must be closed
+     * @throws IOException The folder is not a readable directory
+     */
+    public static Stream<Path> streamFiles (final Path folder, final int bufferSize, final BooleanSupplier cancelled, final String... extensions) throws IOException
+    {
+        return new DirectoryScanner (extensions).stream (folder, bufferSize, cancelled);
+    }
+
+
+    /**
+     * Calculates the checksums of the given files. Several files are processed in parallel, the
+     * CRC32C of large files is additionally calculated in parallel segments.
+     *
+     * @param files The files
+     * @param algorithm The checksum algorithm
+     * @param consumer Receives the checksums, is called from several threads in parallel
+     * @param cancelled Checked before each file, ends early if it returns true, e.g.
+     *            Task::isCancelled
+     * @return The files which could not be read mapped to the reason, empty if all succeeded
+     */
+    public static Map<Path, IOException> computeChecksums (final Collection<Path> files, final ChecksumService.Algorithm algorithm, final Consumer<ChecksumService.Checksum> consumer, final BooleanSupplier cancelled)
+    {
+        return new ChecksumService (algorithm).computeAll (files, consumer, cancelled);
+    }
+
+
     /**
      * Reads a text file in UTF8 encoding into a string.
      *
      * @param file The file to read
      * @return The content of the file
-     * @throws IOException Something crashed
+     * @throws IOException Something crashed, a MalformedInputException if the file is not valid
+     *             UTF-8
      */
     public static String readUTF8 (final File file) throws IOException
     {
-        final String text = Files.readString (file.toPath ());
+        final Path path = file.toPath ();
+        final MetricsRegistry metrics = MetricsRegistry.getDefault ();
+
+        // UTF-8 BOM is not automatically removed, only then the bytes need to be decoded here
+        if (!hasUTF8BOM (path))
+        {
+            final String text = Files.readString (path, StandardCharsets.UTF_8);
+            if (metrics.isEnabled ())
+                metrics.count ("file.read.bytes", Files.size (path));
+            return text;
+        }
+
+        final byte [] data = Files.readAllBytes (path);
+        metrics.count ("file.read.bytes", data.length);
+        validate (ByteBuffer.wrap (data, 3, data.length - 3), StandardCharsets.UTF_8);
+        return new String (data, 3, data.length - 3, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Reads a text file into a string. The character set is detected from the content, see
+     * {@link TextEncoding}. Since only the start of the file is checked, a file which turns out to
+     * be invalid UTF-8 later on is read as ISO-8859-1.
+     *
+     * @param file The file to read
+     * @return The content of the file
+     * @throws IOException Something crashed
+     */
+    public static String readText (final Path file) throws IOException
+    {
+        final byte [] data = Files.readAllBytes (file);
+        MetricsRegistry.getDefault ().count ("file.read.bytes", data.length);
+        final TextEncoding encoding = TextEncoding.detect (data, data.length);
+        final int start = encoding.bomLength ();
+        Charset charset = encoding.charset ();
+        if (charset == StandardCharsets.UTF_8)
+        {
+            try
+            {
+                validate (ByteBuffer.wrap (data, start, data.length - start), charset);
+            }
+            catch (final CharacterCodingException _)
+            {
+                charset = StandardCharsets.ISO_8859_1;
+            }
+        }
+        return new String (data, start, data.length - start, charset);
+    }
+
+
+    /**
+     * Opens a buffered reader on a text file. The character set is detected from the first bytes,
+     * see {@link TextEncoding}. A byte order mark is skipped.
+     *
+     * @param file The file to read
+     * @return The reader, must be closed
+     * @throws IOException Could not open the file
+     */
+    public static BufferedReader newReader (final Path file) throws IOException
+    {
+        final InputStream in = new BufferedInputStream (Files.newInputStream (file), TextEncoding.SNIFF_LENGTH);
+        try
+        {
+            in.mark (TextEncoding.SNIFF_LENGTH);
+            final byte [] head = in.readNBytes (TextEncoding.SNIFF_LENGTH);
+            in.reset ();
+            final TextEncoding encoding = TextEncoding.detect (head, head.length);
+            in.skipNBytes (encoding.bomLength ());
+            return new BufferedReader (new InputStreamReader (in, encoding.charset ()));
+        }
+        catch (final IOException ex)
+        {
+            in.close ();
+            throw ex;
+        }
+    }
+
+
+    /**
+     * Reads a text file line by line without keeping the whole file in memory. The character set is
+     * detected from the first bytes, see {@link TextEncoding}.
+     *
+     * @param file The file to read
+     * @param consumer Receives each line without the line termination characters
+     * @throws IOException Could not read the file
+     */
+    public static void forEachLine (final Path file, final Consumer<String> consumer) throws IOException
+    {
+        try (final BufferedReader reader = newReader (file))
+        {
+            String line;
+            while ((line = reader.readLine ()) != null)
+                consumer.accept (line);
+        }
+    }
+
+
+    /**
+     * Reads a text file in chunks without keeping the whole file in memory. The character set is
+     * detected from the first bytes, see {@link TextEncoding}. The same buffer is handed to the
+     * consumer for each chunk, therefore it must not be kept.
+     *
+     * @param file The file to read
+     * @param chunkSize The maximum number of characters of a chunk
+     * @param consumer Receives each chunk, the buffer is flipped and ready for reading
+     * @throws IOException Could not read the file
+     */
+    public static void forEachChunk (final Path file, final int chunkSize, final Consumer<CharBuffer> consumer) throws IOException
+    {
+        final CharBuffer buffer = CharBuffer.allocate (chunkSize);
+        try (final BufferedReader reader = newReader (file))
+        {
+            while (reader.read (buffer) != -1)
+            {
+                buffer.flip ();
+                consumer.accept (buffer);
+                buffer.clear ();
+            }
+        }
+    }
+
+
+    /**
+     * Maps a text file into memory and provides it as a character sequence. The character set is
+     * detected from the first bytes, see {@link TextEncoding}. ASCII, ISO-8859-1 and UTF-16 files
+     * are not copied but accessed directly in the mapped memory. UTF-8 files which contain non-ASCII
+     * characters are decoded once into a character buffer. Since only the start of the file is
+     * checked, a file which turns out to be invalid UTF-8 later on is read as ISO-8859-1.
+     *
+     * @param file The file to map, must be smaller than 2GB
+     * @return The content of the file
+     * @throws IOException Could not map the file
+     */
+    public static CharSequence mapText (final Path file) throws IOException
+    {
+        final MappedByteBuffer data;
+        try (final FileChannel channel = FileChannel.open (file, StandardOpenOption.READ))
+        {
+            final long size = channel.size ();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException ("File is too large for mapping: " + file);
+            data = channel.map (FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        final TextEncoding encoding = TextEncoding.detect (data);
+        final Charset charset = encoding.charset ();
+        final int start = encoding.bomLength ();
+        final int length = data.limit () - start;
 
-        // UTF-8 BOM might not be automatically removed
-        return !text.isEmpty () && text.charAt (0) == '\uFEFF' ? text.substring (1) : text;
+        if (charset == StandardCharsets.UTF_16LE || charset == StandardCharsets.UTF_16BE)
+        {
+            final ByteOrder order = charset == StandardCharsets.UTF_16LE ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            return data.slice (start, length & ~1).order (order).asCharBuffer ();
+        }
+
+        if (charset == StandardCharsets.UTF_8 && !isASCII (data, start, length))
+        {
+            try
+            {
+                return decode (data.slice (start, length), charset);
+            }
+            catch (final CharacterCodingException _)
+            {
+                // Fall through to ISO-8859-1 like the detection does for invalid UTF-8
+            }
+        }
+
+        return new ByteCharSequence (data, start, length);
+    }
+
+
+    /**
+     * Decodes the bytes and fails on invalid input instead of replacing it.
+     *
+     * @param data The bytes to decode
+     * @param charset The character set of the bytes
+     * @return The characters
+     * @throws CharacterCodingException The bytes are not valid in the character set
+     */
+    private static CharBuffer decode (final ByteBuffer data, final Charset charset) throws CharacterCodingException
+    {
+        return charset.newDecoder ().onMalformedInput (CodingErrorAction.REPORT).onUnmappableCharacter (CodingErrorAction.REPORT).decode (data);
+    }
+
+
+    /**
+     * Checks that the bytes can be decoded without errors. The characters are decoded in chunks
+     * into a small buffer, which is discarded.
+     *
+     * @param data The bytes to check
+     * @param charset The character set of the bytes
+     * @throws CharacterCodingException The bytes are malformed or contain unmappable characters
+     */
+    private static void validate (final ByteBuffer data, final Charset charset) throws CharacterCodingException
+    {
+        final CharsetDecoder decoder = charset.newDecoder ().onMalformedInput (CodingErrorAction.REPORT).onUnmappableCharacter (CodingErrorAction.REPORT);
+        final CharBuffer chunk = CharBuffer.allocate (VALIDATION_CHUNK_SIZE);
+        CoderResult result;
+        do
+        {
+            chunk.clear ();
+            result = decoder.decode (data, chunk, true);
+            if (result.isError ())
+                result.throwException ();
+        } while (result.isOverflow ());
+
+        do
+        {
+            chunk.clear ();
+            result = decoder.flush (chunk);
+        } while (result.isOverflow ());
+    }
+
+
+    /**
+     * Checks if a file starts with the byte order mark of UTF-8.
+     *
+     * @param file The file to check
+     * @return True if the file starts with a BOM
+     * @throws IOException Could not read the file
+     */
+    private static boolean hasUTF8BOM (final Path file) throws IOException
+    {
+        try (final InputStream in = Files.newInputStream (file))
+        {
+            final byte [] start = in.readNBytes (3);
+            return start.length == 3 && start[0] == (byte) 0xEF && start[1] == (byte) 0xBB && start[2] == (byte) 0xBF;
+        }
+    }
+
+
+    private static boolean isASCII (final ByteBuffer data, final int start, final int length)
+    {
+        for (int i = start; i < start + length; i++)
+            if (data.get (i) < 0)
+                return false;
+        return true;
+    }
+
+
+    /**
+     * Writes a text to a file in a way that the file either contains the previous or the new
+     * content, even if the application or the system crashes while writing. The text is written to
+     * a temporary file in the same folder, forced to disk and then moved in place.
+     *
+     * @param file The file to write
+     * @param text The text to write
+     * @param charset The character set to encode the text with
+     * @throws IOException Could not write the file, the previous content is still present
+     */
+    public static void writeAtomically (final Path file, final String text, final Charset charset) throws IOException
+    {
+        writeAtomically (file, text.getBytes (charset));
+    }
+
+
+    /**
+     * Writes data to a file in a way that the file either contains the previous or the new content,
+     * even if the application or the system crashes while writing. The data is written to a
+     * temporary file in the same folder, forced to disk and then moved in place.
+     *
+     * @param file The file to write
+     * @param data The data to write
+     * @throws IOException Could not write the file, the previous content is still present
+     */
+    public static void writeAtomically (final Path file, final byte [] data) throws IOException
+    {
+        final MetricsRegistry metrics = MetricsRegistry.getDefault ();
+        final long startTime = metrics.startTimer ();
+        final FileWriteEvent event = new FileWriteEvent ();
+        event.begin ();
+        final Path target = file.toAbsolutePath ();
+        final Path folder = target.getParent ();
+        final Path tempFile = folder.resolve ("." + target.getFileName () + "." + Long.toHexString (ThreadLocalRandom.current ().nextLong ()) + ".tmp");
+
+        try
+        {
+            try (final FileChannel channel = FileChannel.open (tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+            {
+                write (channel, data);
+                channel.force (true);
+            }
+
+            try
+            {
+                Files.move (tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (final AtomicMoveNotSupportedException _)
+            {
+                Files.move (tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        catch (final IOException ex)
+        {
+            Files.deleteIfExists (tempFile);
+            throw ex;
+        }
+
+        forceFolder (folder);
+        metrics.stopTimer ("file.write", startTime);
+        metrics.count ("file.write.files");
+        metrics.count ("file.write.bytes", data.length);
+        event.end ();
+        if (event.shouldCommit ())
+        {
+            event.path = target.toString ();
+            event.bytes = data.length;
+            event.commit ();
+        }
+    }
+
+
+    /**
+     * Writes data to a channel through a pooled direct buffer. Writing a heap buffer would make the
+     * channel copy all of the data into a temporary direct buffer of the same size.
+     *
+     * @param channel The channel to write to
+     * @param data The data to write
+     * @throws IOException Could not write the data
+     */
+    private static void write (final FileChannel channel, final byte [] data) throws IOException
+    {
+        final BufferPool pool = BufferPool.getDefault ();
+        final ByteBuffer buffer = pool.acquire (Math.min (data.length, WRITE_BUFFER_SIZE));
+        try
+        {
+            for (int offset = 0; offset < data.length; offset += buffer.capacity ())
+            {
+                buffer.clear ();
+                buffer.put (data, offset, Math.min (buffer.capacity (), data.length - offset));
+                buffer.flip ();
+                while (buffer.hasRemaining ())
+                    channel.write (buffer);
+            }
+        }
+        finally
+        {
+            pool.release (buffer);
+        }
+    }
+
+
+    /**
+     * Forces the folder entry of a renamed file to disk. Only supported on some platforms (e.g.
+     * Linux), therefore errors are ignored.
+     *
+     * @param folder The folder
+     */
+    private static void forceFolder (final Path folder)
+    {
+        if (OperatingSystem.get () == OperatingSystem.WINDOWS)
+            return;
+
+        try (final FileChannel channel = FileChannel.open (folder, StandardOpenOption.READ))
+        {
+            channel.force (true);
+        }
+        catch (final IOException _)
+        {
+            // Not supported
+        }
+    }
+
+
+    /**
+     * Copies a file. The data is transferred by the operating system without passing the Java heap.
+     * If the copy is cancelled or fails, the incomplete target file is removed.
+     *
+     * @param source The file to copy
+     * @param target The target file, is replaced if it exists
+     * @param listener Gets notified about the number of copied bytes
+     * @param cancelled Checked regularly while copying, stops if it returns true, e.g.
+     *            Task::isCancelled
+     * @return True if the file was copied, false if cancelled
+     * @throws IOException Could not copy the file
+     */
+    public static boolean copyFile (final Path source, final Path target, final ProgressListener listener, final BooleanSupplier cancelled) throws IOException
+    {
+        return FileTransfer.transfer (source, target, false, listener, cancelled);
+    }
+
+
+    /**
+     * Moves a file. Within the same file store the file is simply renamed, otherwise it is copied
+     * like in {@link #copyFile(Path, Path, ProgressListener, BooleanSupplier)} and then removed.
+     *
+     * @param source The file to move
+     * @param target The target file, is replaced if it exists
+     * @param listener Gets notified about the number of moved bytes
+     * @param cancelled Checked regularly while copying, stops if it returns true, e.g.
+     *            Task::isCancelled
+     * @return True if the file was moved, false if cancelled
+     * @throws IOException Could not move the file
+     */
+    public static boolean moveFile (final Path source, final Path target, final ProgressListener listener, final BooleanSupplier cancelled) throws IOException
+    {
+        return FileTransfer.transfer (source, target, true, listener, cancelled);
+    }
+
+
+    /**
+     * Copies several files in parallel with the default I/O parallelism of the platform. The
+     * listener is notified about the number of copied bytes of all files.
+     *
+     * @param files The source files mapped to their target files
+     * @param listener Gets notified about the number of copied bytes, must be thread-safe
+     * @param cancelled Checked regularly while copying, stops if it returns true, e.g.
+     *            Task::isCancelled
+     * @return True if all files were copied, false if cancelled
+     * @throws IOException Could not copy a file, the remaining files are not copied
+     * @see PlatformCapabilities#getIOParallelism()
+     */
+    public static boolean copyFiles (final Map<Path, Path> files, final ProgressListener listener, final BooleanSupplier cancelled) throws IOException
+    {
+        return copyFiles (files, PlatformCapabilities.getIOParallelism (), listener, cancelled);
+    }
+
+
+    /**
+     * Copies several files in parallel. The listener is notified about the number of copied bytes
+     * of all files, which gives an exact progress also for a few very large files.
+     *
+     * @param files The source files mapped to their target files
+     * @param parallelism The number of files to copy at the same time
+     * @param listener Gets notified about the number of copied bytes, must be thread-safe
+     * @param cancelled Checked regularly while copying, stops if it returns true, e.g.
+     *            Task::isCancelled
+     * @return True if all files were copied, false if cancelled
+     * @throws IOException Could not copy a file, the remaining files are not copied
+     */
+    public static boolean copyFiles (final Map<Path, Path> files, final int parallelism, final ProgressListener listener, final BooleanSupplier cancelled) throws IOException
+    {
+        return FileTransfer.transferAll (files, false, parallelism, listener, cancelled);
+    }
+
+
+    /**
+     * Moves several files in parallel with the default I/O parallelism of the platform. The
+     * listener is notified about the number of moved bytes of all files.
+     *
+     * @param files The source files mapped to their target files
+     * @param listener Gets notified about the number of moved bytes, must be thread-safe
+     * @param cancelled Checked regularly while copying, stops if it returns true, e.g.
+     *            Task::isCancelled
+     * @return True if all files were moved, false if cancelled
+     * @throws IOException Could not move a file, the remaining files are not moved
+     * @see PlatformCapabilities#getIOParallelism()
+     */
+    public static boolean moveFiles (final Map<Path, Path> files, final ProgressListener listener, final BooleanSupplier cancelled) throws IOException
+    {
+        return moveFiles (files, PlatformCapabilities.getIOParallelism (), listener, cancelled);
+    }
+
+
+    /**
+     * Moves several files in parallel. The listener is notified about the number of moved bytes of
+     * all files.
+     *
+     * @param files The source files mapped to their target files
+     * @param parallelism The number of files to move at the same time
+     * @param listener Gets notified about the number of moved bytes, must be thread-safe
+     * @param cancelled Checked regularly while copying, stops if it returns true, e.g.
+     *            Task::isCancelled
+     * @return True if all files were moved, false if cancelled
+     * @throws IOException Could not move a file, the remaining files are not moved
+     */
+    public static boolean moveFiles (final Map<Path, Path> files, final int parallelism, final ProgressListener listener, final BooleanSupplier cancelled) throws IOException
+    {
+        return FileTransfer.transferAll (files, true, parallelism, listener, cancelled);
     }
 
 
     /**
      * Creates a DOS file name with a maximum number of 8 characters. Adds numbers to make it unique
-     * among the given other file names.
+     * among the given other file names. Use the {@link DOSFileNameGenerator} for creating many
+     * names, since it does not need to probe all numbers again for each name.
      *
      * @param filename The filename to shorten
      * @param createdNames Prevent conflicts with these file names
@@ -98,16 +671,16 @@ public final class FileUtils
      */
     public static String createDOSFileName (final String filename, final Set<String> createdNames)
     {
-        String dosFilename = filename.toUpperCase ().replace (' ', '_');
-        if (dosFilename.length () > 8)
-            dosFilename = dosFilename.substring (0, 8);
+        final String upperFilename = filename.toUpperCase ().replace (' ', '_');
+        final String stem = upperFilename.length () > 8 ? upperFilename.substring (0, 8) : upperFilename;
 
+        String dosFilename = stem;
         int counter = 1;
         while (createdNames.contains (dosFilename))
         {
             counter++;
             final String counterStr = Integer.toString (counter);
-            dosFilename = dosFilename.substring (0, 8 - counterStr.length ()) + counterStr;
+            dosFilename = stem.substring (0, Math.min (stem.length (), 8 - counterStr.length ())) + counterStr;
         }
 
         createdNames.add (dosFilename);
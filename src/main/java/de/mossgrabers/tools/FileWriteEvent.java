@@ -0,0 +1,32 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Flight recorder event for writing a file atomically.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+@Name("de.mossgrabers.FileWrite")
+@Label("File Write")
+@Category({"UiTools", "File"})
+@Description("Atomic writing of a file")
+class FileWriteEvent extends Event
+{
+    @Label("Path")
+    String path;
+
+    @Label("Bytes")
+    @DataAmount
+    long   bytes;
+}
@@ -0,0 +1,426 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+
+/**
+ * Monitors a folder tree for created, modified and deleted files with a WatchService. Events which
+ * arrive in a burst are collected until no event arrived for the debounce time and are then handed
+ * over as one change set. To not delay the changes forever if events arrive continuously, e.g.
+ * while a large file is written, they are also handed over when the maximum delay has passed since
+ * the first event of the burst. If the operating system drops events (overflow), the tree is re-scanned
+ * and compared with the last known modification times of all files.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class FolderMonitor implements AutoCloseable
+{
+    /**
+     * The files which changed since the last change set. Only contains files, not folders.
+     *
+     * @param created The new files
+     * @param modified The modified files
+     * @param deleted The removed files
+     * @param isRescan True if the changes were detected by a re-scan after events were lost
+     */
+    public record ChangeSet (Set<Path> created, Set<Path> modified, Set<Path> deleted, boolean isRescan)
+    {
+        /**
+         * Check if there are no changes.
+         *
+         * @return True if there are no changes
+         */
+        public boolean isEmpty ()
+        {
+            return this.created.isEmpty () && this.modified.isEmpty () && this.deleted.isEmpty ();
+        }
+    }
+
+
+    private final Path                root;
+    private final long                debounceMillis;
+    private final long                maxDelayMillis;
+    private final Consumer<ChangeSet> listener;
+    private final WatchService        watchService;
+    private final Map<WatchKey, Path> watchedFolders = new HashMap<> ();
+    private final Set<Path>           folders        = new HashSet<> ();
+    private final Map<Path, Long>     lastModified   = new HashMap<> ();
+    private final Thread              monitorThread;
+
+
+    /**
+     * Constructor. Registers all folders of the tree and starts monitoring. The maximum delay is 10
+     * times the debounce time.
+     *
+     * @param root The top folder of the tree to monitor
+     * @param debounceMillis The time in milliseconds without events after which the collected
+     *            changes are handed over
+     * @param listener Receives the change sets, is called from the monitor thread
+     * @throws IOException Could not register the folders
+     */
+    public FolderMonitor (final Path root, final long debounceMillis, final Consumer<ChangeSet> listener) throws IOException
+    {
+        this (root, debounceMillis, 10 * debounceMillis, listener);
+    }
+
+
+    /**
+     * Constructor. Registers all folders of the tree and starts monitoring.
+     *
+     * @param root The top folder of the tree to monitor
+     * @param debounceMillis The time in milliseconds without events after which the collected
+     *            changes are handed over
+     * @param maxDelayMillis The time in milliseconds after the first event of a burst after which
+     *            the collected changes are handed over even if events keep arriving
+     * @param listener Receives the change sets, is called from the monitor thread
+     * @throws IOException Could not register the folders
+     */
+    public FolderMonitor (final Path root, final long debounceMillis, final long maxDelayMillis, final Consumer<ChangeSet> listener) throws IOException
+    {
+        this.root = root.toAbsolutePath ().normalize ();
+        this.debounceMillis = debounceMillis;
+        this.maxDelayMillis = Math.max (debounceMillis, maxDelayMillis);
+        this.listener = listener;
+        this.watchService = this.root.getFileSystem ().newWatchService ();
+
+        try
+        {
+            this.registerTree (this.root, null);
+        }
+        catch (final IOException ex)
+        {
+            this.watchService.close ();
+            throw ex;
+        }
+
+        this.monitorThread = new Thread (this::monitor, "FolderMonitor");
+        this.monitorThread.setDaemon (true);
+        this.monitorThread.start ();
+    }
+
+
+    /**
+     * Stops monitoring.
+     *
+     * @throws IOException Could not close the watch service
+     */
+    @Override
+    public void close () throws IOException
+    {
+        this.watchService.close ();
+    }
+
+
+    private void monitor ()
+    {
+        try
+        {
+            while (true)
+            {
+                // Wait for the first event of a burst, then collect until it is quiet or the
+                // maximum delay has passed. Remaining events start the next burst
+                WatchKey key = this.watchService.take ();
+                final long deadline = System.nanoTime () + TimeUnit.MILLISECONDS.toNanos (this.maxDelayMillis);
+                final Changes changes = new Changes ();
+                while (key != null)
+                {
+                    this.processEvents (key, changes);
+                    final long remaining = deadline - System.nanoTime ();
+                    if (remaining <= 0)
+                        break;
+                    key = this.watchService.poll (Math.min (TimeUnit.MILLISECONDS.toNanos (this.debounceMillis), remaining), TimeUnit.NANOSECONDS);
+                }
+
+                if (changes.overflow)
+                    this.rescan (changes);
+
+                final ChangeSet changeSet = changes.toChangeSet ();
+                if (!changeSet.isEmpty ())
+                    this.listener.accept (changeSet);
+            }
+        }
+        catch (final InterruptedException _)
+        {
+            Thread.currentThread ().interrupt ();
+        }
+        catch (final ClosedWatchServiceException _)
+        {
+            // Monitor was closed
+        }
+    }
+
+
+    private void processEvents (final WatchKey key, final Changes changes)
+    {
+        final Path folder = this.watchedFolders.get (key);
+        for (final WatchEvent<?> event: key.pollEvents ())
+        {
+            final WatchEvent.Kind<?> kind = event.kind ();
+            if (kind == StandardWatchEventKinds.OVERFLOW || folder == null)
+            {
+                changes.overflow = true;
+                continue;
+            }
+
+            final Path path = folder.resolve ((Path) event.context ());
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE)
+            {
+                if (Files.isDirectory (path))
+                {
+                    try
+                    {
+                        this.registerTree (path, changes);
+                    }
+                    catch (final IOException _)
+                    {
+                        changes.overflow = true;
+                    }
+                }
+                else
+                    changes.fileCreated (path, this.readLastModified (path));
+            }
+            else if (kind == StandardWatchEventKinds.ENTRY_MODIFY)
+            {
+                if (this.lastModified.containsKey (path) || Files.isRegularFile (path))
+                    changes.fileModified (path, this.readLastModified (path));
+            }
+            else if (kind == StandardWatchEventKinds.ENTRY_DELETE)
+            {
+                if (this.lastModified.containsKey (path) || changes.isPending (path))
+                    changes.fileDeleted (path);
+                else
+                    changes.folderDeleted (path);
+            }
+        }
+
+        if (!key.reset ())
+            this.folders.remove (this.watchedFolders.remove (key));
+    }
+
+
+    /**
+     * Walks the tree again and compares it with the known files. Used if events were lost.
+     *
+     * @param changes Where to add the found changes
+     */
+    private void rescan (final Changes changes)
+    {
+        changes.isRescan = true;
+        final Set<Path> existing = new HashSet<> ();
+        try
+        {
+            Files.walkFileTree (this.root, new SimpleFileVisitor<> ()
+            {
+                /** {@inheritDoc} */
+                @Override
+                public FileVisitResult preVisitDirectory (final Path dir, final BasicFileAttributes attrs) throws IOException
+                {
+                    if (!FolderMonitor.this.folders.contains (dir))
+                        FolderMonitor.this.register (dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+
+                /** {@inheritDoc} */
+                @Override
+                public FileVisitResult visitFile (final Path file, final BasicFileAttributes attrs)
+                {
+                    existing.add (file);
+                    final long time = attrs.lastModifiedTime ().toMillis ();
+                    final Long known = changes.getLastModified (file, FolderMonitor.this.lastModified);
+                    if (known == null)
+                        changes.fileCreated (file, time);
+                    else if (known.longValue () != time)
+                        changes.fileModified (file, time);
+                    return FileVisitResult.CONTINUE;
+                }
+
+
+                /** {@inheritDoc} */
+                @Override
+                public FileVisitResult visitFileFailed (final Path file, final IOException ex)
+                {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (final IOException _)
+        {
+            // The root folder is not accessible anymore, all files are gone
+        }
+
+        for (final Path file: this.lastModified.keySet ())
+            if (!existing.contains (file))
+                changes.fileDeleted (file);
+
+        changes.updateTimes (this.lastModified);
+    }
+
+
+    /**
+     * Registers the folder and all of its sub-folders. Remembers the modification times of all
+     * files.
+     *
+     * @param folder The top folder
+     * @param changes If not null, all found files are reported as created
+     * @throws IOException Could not register a folder
+     */
+    private void registerTree (final Path folder, final Changes changes) throws IOException
+    {
+        Files.walkFileTree (folder, new SimpleFileVisitor<> ()
+        {
+            /** {@inheritDoc} */
+            @Override
+            public FileVisitResult preVisitDirectory (final Path dir, final BasicFileAttributes attrs) throws IOException
+            {
+                FolderMonitor.this.register (dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+
+            /** {@inheritDoc} */
+            @Override
+            public FileVisitResult visitFile (final Path file, final BasicFileAttributes attrs)
+            {
+                final long time = attrs.lastModifiedTime ().toMillis ();
+                if (changes == null)
+                    FolderMonitor.this.lastModified.put (file, Long.valueOf (time));
+                else
+                    changes.fileCreated (file, time);
+                return FileVisitResult.CONTINUE;
+            }
+
+
+            /** {@inheritDoc} */
+            @Override
+            public FileVisitResult visitFileFailed (final Path file, final IOException ex)
+            {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+
+    private void register (final Path folder) throws IOException
+    {
+        final WatchKey key = folder.register (this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        this.watchedFolders.put (key, folder);
+        this.folders.add (folder);
+    }
+
+
+    private long readLastModified (final Path file)
+    {
+        try
+        {
+            return Files.getLastModifiedTime (file).toMillis ();
+        }
+        catch (final IOException _)
+        {
+            return 0;
+        }
+    }
+
+
+    /** Collects the changes of one burst of events. */
+    private final class Changes
+    {
+        private final Map<Path, Long> created  = new HashMap<> ();
+        private final Map<Path, Long> modified = new HashMap<> ();
+        private final Set<Path>       deleted  = new HashSet<> ();
+        private boolean               overflow = false;
+        private boolean               isRescan = false;
+
+
+        void fileCreated (final Path file, final long time)
+        {
+            // Deleted and re-created in the same burst or replaced is a modification
+            if (this.deleted.remove (file) || FolderMonitor.this.lastModified.containsKey (file))
+                this.modified.put (file, Long.valueOf (time));
+            else
+                this.created.put (file, Long.valueOf (time));
+        }
+
+
+        void fileModified (final Path file, final long time)
+        {
+            if (this.created.containsKey (file))
+                this.created.put (file, Long.valueOf (time));
+            else
+                this.modified.put (file, Long.valueOf (time));
+        }
+
+
+        void fileDeleted (final Path file)
+        {
+            this.modified.remove (file);
+            // Created and deleted in the same burst is no change at all
+            if (this.created.remove (file) == null)
+                this.deleted.add (file);
+        }
+
+
+        boolean isPending (final Path file)
+        {
+            return this.created.containsKey (file) || this.modified.containsKey (file);
+        }
+
+
+        void folderDeleted (final Path folder)
+        {
+            // All known and new files below the folder are gone
+            final Set<Path> files = new HashSet<> (this.created.keySet ());
+            files.addAll (FolderMonitor.this.lastModified.keySet ());
+            for (final Path file: files)
+                if (file.startsWith (folder))
+                    this.fileDeleted (file);
+        }
+
+
+        Long getLastModified (final Path file, final Map<Path, Long> known)
+        {
+            final Long time = this.modified.get (file);
+            if (time != null)
+                return time;
+            return this.created.containsKey (file) ? this.created.get (file) : known.get (file);
+        }
+
+
+        void updateTimes (final Map<Path, Long> known)
+        {
+            known.putAll (this.created);
+            known.putAll (this.modified);
+            for (final Path file: this.deleted)
+                known.remove (file);
+        }
+
+
+        ChangeSet toChangeSet ()
+        {
+            if (!this.isRescan)
+                this.updateTimes (FolderMonitor.this.lastModified);
+            return new ChangeSet (Collections.unmodifiableSet (this.created.keySet ()), Collections.unmodifiableSet (this.modified.keySet ()), Collections.unmodifiableSet (this.deleted), this.isRescan);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+/**
+ * Helper functions for the primitive hash maps with open addressing.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class HashSupport
+{
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+
+    /**
+     * Private due to helper class.
+     */
+    private HashSupport ()
+    {
+        // Intentionally empty
+    }
+
+
+    /**
+     * Spreads the bits of a key, since the table index is taken from the lower bits and keys like
+     * offsets or indices often differ only in their upper bits.
+     *
+     * @param key The key
+     * @return The hash
+     */
+    static int hash (final int key)
+    {
+        final int h = key * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+
+    /**
+     * Spreads the bits of a key.
+     *
+     * @param key The key
+     * @return The hash
+     */
+    static int hash (final long key)
+    {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+
+    /**
+     * Get the size of a table which can hold the given number of entries.
+     *
+     * @param expectedSize The number of entries
+     * @param maxLoad The maximum share of the used slots
+     * @return The table size, a power of two
+     */
+    static int getTableSize (final int expectedSize, final float maxLoad)
+    {
+        final long needed = (long) Math.ceil (Math.max (expectedSize, 2) / (double) maxLoad) + 1;
+        if (needed > MAX_TABLE_SIZE)
+            return MAX_TABLE_SIZE;
+        return Integer.highestOneBit ((int) needed - 1) << 1;
+    }
+
+
+    /**
+     * Check if an entry can be moved to a freed slot when removing an entry with linear probing.
+     * That is the case if the home slot of the entry is not in the cyclic range of (free..slot].
+     *
+     * @param home The slot to which the key of the entry hashes
+     * @param free The freed slot
+     * @param slot The slot of the entry
+     * @return True if the entry can be moved to the freed slot
+     */
+    static boolean isOutside (final int home, final int free, final int slot)
+    {
+        if (free <= slot)
+            return home <= free || home > slot;
+        return home <= free && home > slot;
+    }
+}
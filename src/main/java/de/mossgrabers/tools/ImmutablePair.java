@@ -0,0 +1,58 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+/**
+ * An immutable pair of values. In contrast to {@link Pair} it can safely be shared and used as a
+ * key in maps and sets.
+ *
+ * @param <T1> The type of the first value
+ * @param <T2> The type of the second value
+ * @param key The first value
+ * @param value The second value
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public record ImmutablePair<T1, T2> (T1 key, T2 value)
+{
+    /**
+     * Creates a pair.
+     *
+     * @param <T1> The type of the first value
+     * @param <T2> The type of the second value
+     * @param key The first value
+     * @param value The second value
+     * @return The pair
+     */
+    public static <T1, T2> ImmutablePair<T1, T2> of (final T1 key, final T2 value)
+    {
+        return new ImmutablePair<> (key, value);
+    }
+
+
+    /**
+     * Creates an immutable copy of a mutable pair.
+     *
+     * @param <T1> The type of the first value
+     * @param <T2> The type of the second value
+     * @param pair The pair to copy
+     * @return The pair
+     */
+    public static <T1, T2> ImmutablePair<T1, T2> of (final Pair<T1, T2> pair)
+    {
+        return new ImmutablePair<> (pair.getKey (), pair.getValue ());
+    }
+
+
+    /**
+     * Creates a mutable copy of this pair.
+     *
+     * @return The pair
+     */
+    public Pair<T1, T2> toPair ()
+    {
+        return new Pair<> (this.key, this.value);
+    }
+}
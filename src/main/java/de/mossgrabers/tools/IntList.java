@@ -0,0 +1,279 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+
+/**
+ * A growable list of int values which stores them in an array without boxing them. Not
+ * thread-safe.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class IntList
+{
+    private static final int [] EMPTY = new int [0];
+
+    private int []              values;
+    private int                 size;
+
+
+    /**
+     * Constructor.
+     */
+    public IntList ()
+    {
+        this.values = EMPTY;
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param initialCapacity The number of values which can be added before the list needs to grow
+     */
+    public IntList (final int initialCapacity)
+    {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException ("Negative capacity: " + initialCapacity);
+        this.values = initialCapacity == 0 ? EMPTY : new int [initialCapacity];
+    }
+
+
+    /**
+     * Get the number of values.
+     *
+     * @return The number of values
+     */
+    public int size ()
+    {
+        return this.size;
+    }
+
+
+    /**
+     * Check if the list contains no values.
+     *
+     * @return True if empty
+     */
+    public boolean isEmpty ()
+    {
+        return this.size == 0;
+    }
+
+
+    /**
+     * Appends a value.
+     *
+     * @param value The value to add
+     */
+    public void add (final int value)
+    {
+        if (this.size == this.values.length)
+            this.grow (this.size + 1);
+        this.values[this.size++] = value;
+    }
+
+
+    /**
+     * Appends several values.
+     *
+     * @param newValues The values to add
+     */
+    public void addAll (final int... newValues)
+    {
+        this.ensureCapacity (this.size + newValues.length);
+        System.arraycopy (newValues, 0, this.values, this.size, newValues.length);
+        this.size += newValues.length;
+    }
+
+
+    /**
+     * Get a value.
+     *
+     * @param index The index of the value
+     * @return The value
+     * @throws IndexOutOfBoundsException If the index is not in the range of [0..size-1]
+     */
+    public int get (final int index)
+    {
+        return this.values[this.checkIndex (index)];
+    }
+
+
+    /**
+     * Replaces a value.
+     *
+     * @param index The index of the value
+     * @param value The new value
+     * @return The previous value
+     * @throws IndexOutOfBoundsException If the index is not in the range of [0..size-1]
+     */
+    public int set (final int index, final int value)
+    {
+        final int i = this.checkIndex (index);
+        final int previous = this.values[i];
+        this.values[i] = value;
+        return previous;
+    }
+
+
+    /**
+     * Removes a value. The following values are moved one position to the front.
+     *
+     * @param index The index of the value
+     * @return The removed value
+     * @throws IndexOutOfBoundsException If the index is not in the range of [0..size-1]
+     */
+    public int removeAt (final int index)
+    {
+        final int i = this.checkIndex (index);
+        final int removed = this.values[i];
+        this.size--;
+        System.arraycopy (this.values, i + 1, this.values, i, this.size - i);
+        return removed;
+    }
+
+
+    /**
+     * Get the index of the first occurrence of a value.
+     *
+     * @param value The value to look for
+     * @return The index or -1 if the list does not contain the value
+     */
+    public int indexOf (final int value)
+    {
+        for (int i = 0; i < this.size; i++)
+            if (this.values[i] == value)
+                return i;
+        return -1;
+    }
+
+
+    /**
+     * Check if the list contains a value.
+     *
+     * @param value The value to look for
+     * @return True if found
+     */
+    public boolean contains (final int value)
+    {
+        return this.indexOf (value) >= 0;
+    }
+
+
+    /**
+     * Removes all values. The capacity is kept.
+     */
+    public void clear ()
+    {
+        this.size = 0;
+    }
+
+
+    /**
+     * Makes sure that the given number of values fits into the list without growing it.
+     *
+     * @param capacity The minimum capacity
+     */
+    public void ensureCapacity (final int capacity)
+    {
+        if (capacity > this.values.length)
+            this.grow (capacity);
+    }
+
+
+    /**
+     * Sorts the values in ascending order.
+     */
+    public void sort ()
+    {
+        Arrays.sort (this.values, 0, this.size);
+    }
+
+
+    /**
+     * Calls the given consumer with each value in order.
+     *
+     * @param consumer The consumer
+     */
+    public void forEach (final IntConsumer consumer)
+    {
+        for (int i = 0; i < this.size; i++)
+            consumer.accept (this.values[i]);
+    }
+
+
+    /**
+     * Get a stream of the values. The list must not be modified while the stream is used.
+     *
+     * @return The stream
+     */
+    public IntStream stream ()
+    {
+        return Arrays.stream (this.values, 0, this.size);
+    }
+
+
+    /**
+     * Get a copy of the values.
+     *
+     * @return The values in an array with the length of the list
+     */
+    public int [] toArray ()
+    {
+        return Arrays.copyOf (this.values, this.size);
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode ()
+    {
+        int result = 1;
+        for (int i = 0; i < this.size; i++)
+            result = 31 * result + this.values[i];
+        return result;
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals (final Object obj)
+    {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof final IntList other))
+            return false;
+        return Arrays.equals (this.values, 0, this.size, other.values, 0, other.size);
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString ()
+    {
+        return Arrays.toString (this.toArray ());
+    }
+
+
+    private int checkIndex (final int index)
+    {
+        if (index < 0 || index >= this.size)
+            throw new IndexOutOfBoundsException ("Index " + index + " out of bounds for size " + this.size);
+        return index;
+    }
+
+
+    private void grow (final int minCapacity)
+    {
+        // Grow by 50% but at least to 8 values
+        final int newCapacity = Math.max (Math.max (minCapacity, 8), this.values.length + (this.values.length >> 1));
+        this.values = Arrays.copyOf (this.values, newCapacity);
+    }
+}
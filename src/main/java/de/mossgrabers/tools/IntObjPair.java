@@ -0,0 +1,20 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+/**
+ * An immutable pair of an int and an object, e.g. an index and the element at that index. Does not
+ * box the int value in contrast to {@link Pair}.
+ *
+ * @param <T> The type of the second value
+ * @param key The first value
+ * @param value The second value
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public record IntObjPair<T> (int key, T value)
+{
+    // Intentionally empty
+}
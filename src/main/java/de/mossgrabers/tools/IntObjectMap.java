@@ -0,0 +1,294 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.util.Arrays;
+
+
+/**
+ * A hash map from int keys to objects which does not box the keys. The entries are stored in two
+ * parallel arrays with open addressing and linear probing, therefore adding an entry does not
+ * allocate a node object. Null values are not supported since they mark the free slots. Not
+ * thread-safe.
+ *
+ * @param <V> The type of the values
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class IntObjectMap<V>
+{
+    /**
+     * Callback for iterating over the entries of the map.
+     *
+     * @param <V> The type of the values
+     */
+    @FunctionalInterface
+    public interface Visitor<V>
+    {
+        /**
+         * Called for each entry.
+         *
+         * @param key The key of the entry
+         * @param value The value of the entry
+         */
+        void accept (int key, V value);
+    }
+
+
+    private static final float MAX_LOAD = 0.6f;
+
+    private int []             keys;
+    private Object []          values;
+    private int                size;
+    private int                threshold;
+
+
+    /**
+     * Constructor.
+     */
+    public IntObjectMap ()
+    {
+        this (16);
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param expectedSize The number of entries which can be added before the map needs to grow
+     */
+    public IntObjectMap (final int expectedSize)
+    {
+        this.allocate (HashSupport.getTableSize (expectedSize, MAX_LOAD));
+    }
+
+
+    /**
+     * Get the number of entries.
+     *
+     * @return The number of entries
+     */
+    public int size ()
+    {
+        return this.size;
+    }
+
+
+    /**
+     * Check if the map contains no entries.
+     *
+     * @return True if empty
+     */
+    public boolean isEmpty ()
+    {
+        return this.size == 0;
+    }
+
+
+    /**
+     * Get the value of a key.
+     *
+     * @param key The key
+     * @return The value or null if the map does not contain the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get (final int key)
+    {
+        final int slot = this.findSlot (key);
+        return slot < 0 ? null : (V) this.values[slot];
+    }
+
+
+    /**
+     * Get the value of a key.
+     *
+     * @param key The key
+     * @param defaultValue The value to return if the map does not contain the key
+     * @return The value
+     */
+    public V getOrDefault (final int key, final V defaultValue)
+    {
+        final V value = this.get (key);
+        return value == null ? defaultValue : value;
+    }
+
+
+    /**
+     * Check if the map contains a key.
+     *
+     * @param key The key
+     * @return True if found
+     */
+    public boolean containsKey (final int key)
+    {
+        return this.findSlot (key) >= 0;
+    }
+
+
+    /**
+     * Adds an entry or replaces the value of an existing key.
+     *
+     * @param key The key
+     * @param value The value, must not be null
+     * @return The previous value or null if the map did not contain the key
+     */
+    @SuppressWarnings("unchecked")
+    public V put (final int key, final V value)
+    {
+        if (value == null)
+            throw new IllegalArgumentException ("Null values are not supported.");
+
+        final int mask = this.keys.length - 1;
+        int slot = HashSupport.hash (key) & mask;
+        while (this.values[slot] != null)
+        {
+            if (this.keys[slot] == key)
+            {
+                final V previous = (V) this.values[slot];
+                this.values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        if (++this.size > this.threshold)
+            this.rehash (this.keys.length * 2);
+        return null;
+    }
+
+
+    /**
+     * Removes an entry.
+     *
+     * @param key The key of the entry
+     * @return The value of the removed entry or null if the map did not contain the key
+     */
+    @SuppressWarnings("unchecked")
+    public V remove (final int key)
+    {
+        final int slot = this.findSlot (key);
+        if (slot < 0)
+            return null;
+        final V removed = (V) this.values[slot];
+        this.size--;
+
+        // Move the following entries of the probe sequence back instead of leaving a tombstone
+        final int mask = this.keys.length - 1;
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (this.values[next] != null)
+        {
+            final int home = HashSupport.hash (this.keys[next]) & mask;
+            if (HashSupport.isOutside (home, free, next))
+            {
+                this.keys[free] = this.keys[next];
+                this.values[free] = this.values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        this.values[free] = null;
+        return removed;
+    }
+
+
+    /**
+     * Removes all entries. The capacity is kept.
+     */
+    public void clear ()
+    {
+        Arrays.fill (this.values, null);
+        this.size = 0;
+    }
+
+
+    /**
+     * Calls the visitor with each entry. The order is undefined. The map must not be modified
+     * during the iteration.
+     *
+     * @param visitor The visitor
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach (final Visitor<? super V> visitor)
+    {
+        for (int i = 0; i < this.keys.length; i++)
+            if (this.values[i] != null)
+                visitor.accept (this.keys[i], (V) this.values[i]);
+    }
+
+
+    /**
+     * Get all keys. The order is undefined.
+     *
+     * @return The keys in an array with the length of the number of entries
+     */
+    public int [] keys ()
+    {
+        final int [] result = new int [this.size];
+        int pos = 0;
+        for (int i = 0; i < this.keys.length; i++)
+            if (this.values[i] != null)
+                result[pos++] = this.keys[i];
+        return result;
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString ()
+    {
+        final StringBuilder sb = new StringBuilder ("{");
+        this.forEach ( (key, value) -> {
+            if (sb.length () > 1)
+                sb.append (", ");
+            sb.append (key).append ('=').append (value);
+        });
+        return sb.append ('}').toString ();
+    }
+
+
+    private int findSlot (final int key)
+    {
+        final int mask = this.keys.length - 1;
+        int slot = HashSupport.hash (key) & mask;
+        while (this.values[slot] != null)
+        {
+            if (this.keys[slot] == key)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+
+    private void allocate (final int tableSize)
+    {
+        this.keys = new int [tableSize];
+        this.values = new Object [tableSize];
+        this.threshold = (int) (tableSize * MAX_LOAD);
+    }
+
+
+    private void rehash (final int tableSize)
+    {
+        final int [] oldKeys = this.keys;
+        final Object [] oldValues = this.values;
+        this.allocate (tableSize);
+
+        final int mask = tableSize - 1;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldValues[i] == null)
+                continue;
+            int slot = HashSupport.hash (oldKeys[i]) & mask;
+            while (this.values[slot] != null)
+                slot = (slot + 1) & mask;
+            this.keys[slot] = oldKeys[i];
+            this.values[slot] = oldValues[i];
+        }
+    }
+}
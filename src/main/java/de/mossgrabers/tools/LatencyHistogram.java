@@ -0,0 +1,297 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+
+/**
+ * Records the distribution of latencies (or other positive values) in log-linear buckets like
+ * HdrHistogram: each power of two is divided into 32 linear sub-buckets, therefore the reported
+ * percentiles are at most about 3% larger than the real values. Values up to 2^44 (about 4.9 hours
+ * in nanoseconds) are distinguished, larger values are counted in the last bucket. The maximum is
+ * tracked exactly.
+ * <p>
+ * Recording a value neither allocates nor locks. The counters are striped by thread to avoid
+ * contention between threads which record at the same time, the stripes are summed up when
+ * reading. Each stripe needs about 10KB and is only allocated when a thread records into it for the
+ * first time, therefore a histogram which is only used by one thread has only one stripe.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class LatencyHistogram
+{
+    private static final int                            SUB_BUCKET_BITS  = 6;
+    private static final int                            SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int                            SUB_BUCKET_HALF  = SUB_BUCKET_COUNT / 2;
+    private static final int                            MAX_MAGNITUDE    = 43;
+    private static final int                            BUCKET_COUNT     = SUB_BUCKET_COUNT + (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_HALF;
+    /** Each stripe stores the buckets followed by the sum of the recorded values. */
+    private static final int                            STRIPE_SIZE      = BUCKET_COUNT + 1;
+    private static final int                            MAX_STRIPES      = 4;
+
+    private final int                                   stripeMask;
+    private final AtomicReferenceArray<AtomicLongArray> stripes;
+    private final LongAccumulator                       max              = new LongAccumulator (Math::max, 0);
+
+
+    /**
+     * Constructor. Uses one stripe per processor, but at most 4.
+     */
+    public LatencyHistogram ()
+    {
+        this (Math.min (MAX_STRIPES, Runtime.getRuntime ().availableProcessors ()));
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param stripes The maximum number of counter stripes, rounded up to a power of two
+     */
+    public LatencyHistogram (final int stripes)
+    {
+        final int stripeCount = stripes <= 1 ? 1 : Integer.highestOneBit (stripes - 1) << 1;
+        this.stripeMask = stripeCount - 1;
+        this.stripes = new AtomicReferenceArray<> (stripeCount);
+    }
+
+
+    /**
+     * Records a value.
+     *
+     * @param value The value, e.g. a duration in nanoseconds. Negative values are recorded as 0
+     */
+    public void record (final long value)
+    {
+        final long v = Math.max (0, value);
+        final AtomicLongArray stripe = this.getStripe ();
+        stripe.incrementAndGet (getBucketIndex (v));
+        stripe.addAndGet (BUCKET_COUNT, v);
+        this.max.accumulate (v);
+    }
+
+
+    /**
+     * Adds all recorded values of another histogram to this one.
+     *
+     * @param other The other histogram
+     */
+    public void merge (final LatencyHistogram other)
+    {
+        final AtomicLongArray stripe = this.getStripe ();
+        for (int i = 0; i < STRIPE_SIZE; i++)
+        {
+            final long value = other.sum (i);
+            if (value != 0)
+                stripe.addAndGet (i, value);
+        }
+        this.max.accumulate (other.getMax ());
+    }
+
+
+    /**
+     * Get the number of recorded values.
+     *
+     * @return The number of values
+     */
+    public long getCount ()
+    {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            count += this.sum (i);
+        return count;
+    }
+
+
+    /**
+     * Get the sum of all recorded values.
+     *
+     * @return The sum
+     */
+    public long getSum ()
+    {
+        return this.sum (BUCKET_COUNT);
+    }
+
+
+    /**
+     * Get the largest recorded value.
+     *
+     * @return The maximum, 0 if no value was recorded
+     */
+    public long getMax ()
+    {
+        return this.max.get ();
+    }
+
+
+    /**
+     * Get the average of the recorded values.
+     *
+     * @return The mean, 0 if no value was recorded
+     */
+    public double getMean ()
+    {
+        final long count = this.getCount ();
+        return count == 0 ? 0 : (double) this.getSum () / count;
+    }
+
+
+    /**
+     * Get the value below or at which the given percentage of the recorded values are. The result is
+     * the upper bound of the bucket which contains that value but never more than the maximum.
+     *
+     * @param percentile The percentile in the range of [0..100], e.g. 99.9
+     * @return The value, 0 if no value was recorded
+     */
+    public long getValueAtPercentile (final double percentile)
+    {
+        final long count = this.getCount ();
+        if (count == 0)
+            return 0;
+
+        // Values which are recorded in the meantime might not be reached, then it is the maximum
+        final double p = Math.min (100, Math.max (0, percentile));
+        final long target = Math.max (1, (long) Math.ceil (p / 100.0 * count));
+        long cumulated = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            cumulated += this.sum (i);
+            if (cumulated >= target)
+                return Math.min (getUpperBound (i), this.getMax ());
+        }
+        return this.getMax ();
+    }
+
+
+    /**
+     * Get the median.
+     *
+     * @return The 50th percentile
+     */
+    public long getP50 ()
+    {
+        return this.getValueAtPercentile (50);
+    }
+
+
+    /**
+     * Get the 99th percentile.
+     *
+     * @return The 99th percentile
+     */
+    public long getP99 ()
+    {
+        return this.getValueAtPercentile (99);
+    }
+
+
+    /**
+     * Get the 99.9th percentile.
+     *
+     * @return The 99.9th percentile
+     */
+    public long getP999 ()
+    {
+        return this.getValueAtPercentile (99.9);
+    }
+
+
+    /**
+     * Removes all recorded values. Values which are recorded at the same time might get lost.
+     */
+    public void reset ()
+    {
+        for (int s = 0; s < this.stripes.length (); s++)
+        {
+            final AtomicLongArray stripe = this.stripes.get (s);
+            if (stripe != null)
+                for (int i = 0; i < STRIPE_SIZE; i++)
+                    stripe.set (i, 0);
+        }
+        this.max.reset ();
+    }
+
+
+    /**
+     * Formats the percentiles of durations which were recorded in nanoseconds.
+     *
+     * @return The count, p50, p99, p99.9 and maximum in milliseconds
+     */
+    public String formatNanos ()
+    {
+        return String.format (Locale.US, "count=%d, p50=%.3fms, p99=%.3fms, p99.9=%.3fms, max=%.3fms", Long.valueOf (this.getCount ()), toMillis (this.getP50 ()), toMillis (this.getP99 ()), toMillis (this.getP999 ()), toMillis (this.getMax ()));
+    }
+
+
+    /**
+     * Get the index of the bucket which counts the given value.
+     *
+     * @param value The value, must not be negative
+     * @return The index
+     */
+    static int getBucketIndex (final long value)
+    {
+        if (value < SUB_BUCKET_COUNT)
+            return (int) value;
+        final int magnitude = Math.min (63 - Long.numberOfLeadingZeros (value), MAX_MAGNITUDE);
+        final int shift = magnitude - SUB_BUCKET_BITS + 1;
+        // The top bits are in the range of [SUB_BUCKET_HALF..SUB_BUCKET_COUNT-1]
+        final int top = (int) Math.min (value >>> shift, SUB_BUCKET_COUNT - 1);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + top - SUB_BUCKET_HALF;
+    }
+
+
+    /**
+     * Get the largest value which is counted in the bucket with the given index.
+     *
+     * @param index The index of the bucket
+     * @return The upper bound, the last bucket has none
+     */
+    static long getUpperBound (final int index)
+    {
+        if (index < SUB_BUCKET_COUNT)
+            return index;
+        if (index == BUCKET_COUNT - 1)
+            return Long.MAX_VALUE;
+        final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+        final long top = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return ((top + 1) << shift) - 1;
+    }
+
+
+    private AtomicLongArray getStripe ()
+    {
+        final int index = (int) (Thread.currentThread ().threadId () & this.stripeMask);
+        final AtomicLongArray stripe = this.stripes.get (index);
+        if (stripe != null)
+            return stripe;
+        this.stripes.compareAndSet (index, null, new AtomicLongArray (STRIPE_SIZE));
+        return this.stripes.get (index);
+    }
+
+
+    private long sum (final int index)
+    {
+        long sum = 0;
+        for (int s = 0; s < this.stripes.length (); s++)
+        {
+            final AtomicLongArray stripe = this.stripes.get (s);
+            if (stripe != null)
+                sum += stripe.get (index);
+        }
+        return sum;
+    }
+
+
+    private static Double toMillis (final long nanos)
+    {
+        return Double.valueOf (nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,332 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.util.Arrays;
+
+
+/**
+ * A hash map from long keys to int values which boxes neither keys nor values, e.g. to map file
+ * offsets to indices or to count occurrences. The entries are stored in parallel arrays with open
+ * addressing and linear probing, therefore adding an entry does not allocate a node object. Not
+ * thread-safe.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class LongIntMap
+{
+    /**
+     * Callback for iterating over the entries of the map.
+     */
+    @FunctionalInterface
+    public interface Visitor
+    {
+        /**
+         * Called for each entry.
+         *
+         * @param key The key of the entry
+         * @param value The value of the entry
+         */
+        void accept (long key, int value);
+    }
+
+
+    private static final float MAX_LOAD = 0.6f;
+
+    private final int          missingValue;
+    private long []            keys;
+    private int []             values;
+    private boolean []         used;
+    private int                size;
+    private int                threshold;
+
+
+    /**
+     * Constructor. Missing keys have the value -1.
+     */
+    public LongIntMap ()
+    {
+        this (16, -1);
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param expectedSize The number of entries which can be added before the map needs to grow
+     * @param missingValue The value which is returned for keys which are not in the map
+     */
+    public LongIntMap (final int expectedSize, final int missingValue)
+    {
+        this.missingValue = missingValue;
+        this.allocate (HashSupport.getTableSize (expectedSize, MAX_LOAD));
+    }
+
+
+    /**
+     * Get the number of entries.
+     *
+     * @return The number of entries
+     */
+    public int size ()
+    {
+        return this.size;
+    }
+
+
+    /**
+     * Check if the map contains no entries.
+     *
+     * @return True if empty
+     */
+    public boolean isEmpty ()
+    {
+        return this.size == 0;
+    }
+
+
+    /**
+     * Get the value which is returned for keys which are not in the map.
+     *
+     * @return The missing value
+     */
+    public int getMissingValue ()
+    {
+        return this.missingValue;
+    }
+
+
+    /**
+     * Get the value of a key.
+     *
+     * @param key The key
+     * @return The value or the missing value if the map does not contain the key
+     */
+    public int get (final long key)
+    {
+        final int slot = this.findSlot (key);
+        return slot < 0 ? this.missingValue : this.values[slot];
+    }
+
+
+    /**
+     * Check if the map contains a key.
+     *
+     * @param key The key
+     * @return True if found
+     */
+    public boolean containsKey (final long key)
+    {
+        return this.findSlot (key) >= 0;
+    }
+
+
+    /**
+     * Adds an entry or replaces the value of an existing key.
+     *
+     * @param key The key
+     * @param value The value
+     * @return The previous value or the missing value if the map did not contain the key
+     */
+    public int put (final long key, final int value)
+    {
+        final int slot = this.findOrInsert (key);
+        if (slot < 0)
+        {
+            final int insertSlot = -slot - 1;
+            this.values[insertSlot] = value;
+            this.afterInsert ();
+            return this.missingValue;
+        }
+        final int previous = this.values[slot];
+        this.values[slot] = value;
+        return previous;
+    }
+
+
+    /**
+     * Adds a delta to the value of a key. If the map does not contain the key, the entry is added
+     * with the delta as its value.
+     *
+     * @param key The key
+     * @param delta The value to add
+     * @return The new value
+     */
+    public int addTo (final long key, final int delta)
+    {
+        final int slot = this.findOrInsert (key);
+        if (slot < 0)
+        {
+            this.values[-slot - 1] = delta;
+            this.afterInsert ();
+            return delta;
+        }
+        this.values[slot] += delta;
+        return this.values[slot];
+    }
+
+
+    /**
+     * Removes an entry.
+     *
+     * @param key The key of the entry
+     * @return The value of the removed entry or the missing value if the map did not contain the
+     *         key
+     */
+    public int remove (final long key)
+    {
+        final int slot = this.findSlot (key);
+        if (slot < 0)
+            return this.missingValue;
+        final int removed = this.values[slot];
+        this.size--;
+
+        // Move the following entries of the probe sequence back instead of leaving a tombstone
+        final int mask = this.keys.length - 1;
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (this.used[next])
+        {
+            final int home = HashSupport.hash (this.keys[next]) & mask;
+            if (HashSupport.isOutside (home, free, next))
+            {
+                this.keys[free] = this.keys[next];
+                this.values[free] = this.values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        this.used[free] = false;
+        return removed;
+    }
+
+
+    /**
+     * Removes all entries. The capacity is kept.
+     */
+    public void clear ()
+    {
+        Arrays.fill (this.used, false);
+        this.size = 0;
+    }
+
+
+    /**
+     * Calls the visitor with each entry. The order is undefined. The map must not be modified
+     * during the iteration.
+     *
+     * @param visitor The visitor
+     */
+    public void forEach (final Visitor visitor)
+    {
+        for (int i = 0; i < this.keys.length; i++)
+            if (this.used[i])
+                visitor.accept (this.keys[i], this.values[i]);
+    }
+
+
+    /**
+     * Get all keys. The order is undefined.
+     *
+     * @return The keys in an array with the length of the number of entries
+     */
+    public long [] keys ()
+    {
+        final long [] result = new long [this.size];
+        int pos = 0;
+        for (int i = 0; i < this.keys.length; i++)
+            if (this.used[i])
+                result[pos++] = this.keys[i];
+        return result;
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString ()
+    {
+        final StringBuilder sb = new StringBuilder ("{");
+        this.forEach ( (key, value) -> {
+            if (sb.length () > 1)
+                sb.append (", ");
+            sb.append (key).append ('=').append (value);
+        });
+        return sb.append ('}').toString ();
+    }
+
+
+    private int findSlot (final long key)
+    {
+        final int mask = this.keys.length - 1;
+        int slot = HashSupport.hash (key) & mask;
+        while (this.used[slot])
+        {
+            if (this.keys[slot] == key)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+
+    /**
+     * Finds the slot of a key or occupies a free slot for it.
+     *
+     * @param key The key
+     * @return The slot if the key was found, otherwise -(slot + 1) of the newly occupied slot
+     */
+    private int findOrInsert (final long key)
+    {
+        final int mask = this.keys.length - 1;
+        int slot = HashSupport.hash (key) & mask;
+        while (this.used[slot])
+        {
+            if (this.keys[slot] == key)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        this.used[slot] = true;
+        this.keys[slot] = key;
+        return -slot - 1;
+    }
+
+
+    private void afterInsert ()
+    {
+        if (++this.size > this.threshold)
+            this.rehash (this.keys.length * 2);
+    }
+
+
+    private void allocate (final int tableSize)
+    {
+        this.keys = new long [tableSize];
+        this.values = new int [tableSize];
+        this.used = new boolean [tableSize];
+        this.threshold = (int) (tableSize * MAX_LOAD);
+    }
+
+
+    private void rehash (final int tableSize)
+    {
+        final long [] oldKeys = this.keys;
+        final int [] oldValues = this.values;
+        final boolean [] oldUsed = this.used;
+        this.allocate (tableSize);
+
+        final int mask = tableSize - 1;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (!oldUsed[i])
+                continue;
+            int slot = HashSupport.hash (oldKeys[i]) & mask;
+            while (this.used[slot])
+                slot = (slot + 1) & mask;
+            this.used[slot] = true;
+            this.keys[slot] = oldKeys[i];
+            this.values[slot] = oldValues[i];
+        }
+    }
+}
@@ -0,0 +1,19 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+/**
+ * An immutable pair of two long values, e.g. the offset and the length of a block in a file. Does
+ * not box the values in contrast to {@link Pair}.
+ *
+ * @param key The first value
+ * @param value The second value
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public record LongLongPair (long key, long value)
+{
+    // Intentionally empty
+}
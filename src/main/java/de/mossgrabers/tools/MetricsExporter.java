@@ -0,0 +1,120 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Hands the metrics of a registry periodically to a sink, e.g. to append them as JSON lines to a
+ * file. The export runs on a daemon thread. Closing the exporter exports one last time.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class MetricsExporter implements AutoCloseable
+{
+    /** Receives the metrics. */
+    @FunctionalInterface
+    public interface Sink
+    {
+        /**
+         * Export the current values of the metrics.
+         *
+         * @param registry The registry to export
+         * @throws IOException Could not export the metrics
+         */
+        void export (MetricsRegistry registry) throws IOException;
+    }
+
+
+    private final MetricsRegistry          registry;
+    private final Sink                     sink;
+    private final ScheduledExecutorService scheduler;
+    private Exception                      lastError;
+
+
+    /**
+     * Constructor. Starts the periodic export.
+     *
+     * @param registry The registry to export
+     * @param periodMillis The time between two exports in milliseconds
+     * @param sink Where to export the metrics to
+     */
+    public MetricsExporter (final MetricsRegistry registry, final long periodMillis, final Sink sink)
+    {
+        this.registry = registry;
+        this.sink = sink;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor (runnable -> {
+            final Thread thread = new Thread (runnable, "MetricsExporter");
+            thread.setDaemon (true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate (this::export, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Creates a sink which appends the metrics as one line of JSON to a file.
+     *
+     * @param file The file to append to, is created if it does not exist
+     * @return The sink
+     */
+    public static Sink jsonLines (final Path file)
+    {
+        return registry -> Files.writeString (file, registry.toJSON () + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+
+    /**
+     * Get the error of the last failed export. A failed export does not stop the periodic export.
+     *
+     * @return The error or null if no export failed
+     */
+    public synchronized Exception getLastError ()
+    {
+        return this.lastError;
+    }
+
+
+    /**
+     * Stops the periodic export and exports one last time.
+     */
+    @Override
+    public void close ()
+    {
+        this.scheduler.shutdown ();
+        try
+        {
+            this.scheduler.awaitTermination (1, TimeUnit.MINUTES);
+        }
+        catch (final InterruptedException _)
+        {
+            Thread.currentThread ().interrupt ();
+        }
+        this.export ();
+    }
+
+
+    private synchronized void export ()
+    {
+        try
+        {
+            this.sink.export (this.registry);
+        }
+        catch (final IOException | RuntimeException ex)
+        {
+            // Keep on exporting, the problem might be temporary (e.g. a full disk). An exception
+            // which is not caught would silently cancel the scheduled export
+            this.lastError = ex;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+
+/**
+ * A registry of named metrics: counters, gauges and timers. Counters are LongAdders, which are
+ * striped and therefore cheap to increment from many threads. Gauges read a value on demand. Timers
+ * record durations into a {@link LatencyHistogram}.
+ * <p>
+ * The I/O functions of this library (XMLUtils, FileUtils, the LoggerBox log) report to the default
+ * registry if it is enabled, either with {@link #setEnabled(boolean)} or with the system property
+ * "de.mossgrabers.tools.metrics". If it is disabled, the convenience methods {@link #count(String)},
+ * {@link #startTimer()} and {@link #stopTimer(String, long)} cost only the check of a flag. Use a
+ * {@link MetricsExporter} to write the metrics periodically.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class MetricsRegistry
+{
+    /** A counter which only grows (unless it is reset). */
+    public static final class Counter
+    {
+        private final LongAdder adder = new LongAdder ();
+
+
+        /**
+         * Adds one to the counter.
+         */
+        public void increment ()
+        {
+            this.adder.increment ();
+        }
+
+
+        /**
+         * Adds to the counter.
+         *
+         * @param delta The value to add
+         */
+        public void add (final long delta)
+        {
+            this.adder.add (delta);
+        }
+
+
+        /**
+         * Get the current value.
+         *
+         * @return The sum of all additions
+         */
+        public long get ()
+        {
+            return this.adder.sum ();
+        }
+    }
+
+
+    /** Measures durations. */
+    public static final class Timer
+    {
+        private final LatencyHistogram histogram = new LatencyHistogram ();
+
+
+        /**
+         * Records a duration.
+         *
+         * @param nanos The duration in nanoseconds
+         */
+        public void record (final long nanos)
+        {
+            this.histogram.record (nanos);
+        }
+
+
+        /**
+         * Get the distribution of the recorded durations.
+         *
+         * @return The histogram of the durations in nanoseconds
+         */
+        public LatencyHistogram getHistogram ()
+        {
+            return this.histogram;
+        }
+    }
+
+
+    private static final MetricsRegistry    DEFAULT_REGISTRY = new MetricsRegistry (Boolean.getBoolean ("de.mossgrabers.tools.metrics"));
+
+    private final Map<String, Counter>      counters         = new ConcurrentHashMap<> ();
+    private final Map<String, LongSupplier> gauges           = new ConcurrentHashMap<> ();
+    private final Map<String, Timer>        timers           = new ConcurrentHashMap<> ();
+    private volatile boolean                isEnabled;
+
+
+    /**
+     * Constructor.
+     *
+     * @param isEnabled Enables the convenience methods which record only if the registry is
+     *            enabled
+     */
+    public MetricsRegistry (final boolean isEnabled)
+    {
+        this.isEnabled = isEnabled;
+    }
+
+
+    /**
+     * Get the registry to which the functions of this library report.
+     *
+     * @return The default registry
+     */
+    public static MetricsRegistry getDefault ()
+    {
+        return DEFAULT_REGISTRY;
+    }
+
+
+    /**
+     * Check if the registry is enabled.
+     *
+     * @return True if enabled
+     */
+    public boolean isEnabled ()
+    {
+        return this.isEnabled;
+    }
+
+
+    /**
+     * Enables or disables the recording with the convenience methods.
+     *
+     * @param isEnabled True to enable
+     */
+    public void setEnabled (final boolean isEnabled)
+    {
+        this.isEnabled = isEnabled;
+    }
+
+
+    /**
+     * Get a counter. Creates it if it does not exist.
+     *
+     * @param name The name of the counter
+     * @return The counter
+     */
+    public Counter counter (final String name)
+    {
+        final Counter counter = this.counters.get (name);
+        return counter == null ? this.counters.computeIfAbsent (name, _ -> new Counter ()) : counter;
+    }
+
+
+    /**
+     * Get a timer. Creates it if it does not exist.
+     *
+     * @param name The name of the timer
+     * @return The timer
+     */
+    public Timer timer (final String name)
+    {
+        final Timer timer = this.timers.get (name);
+        return timer == null ? this.timers.computeIfAbsent (name, _ -> new Timer ()) : timer;
+    }
+
+
+    /**
+     * Registers a gauge. Replaces a gauge with the same name.
+     *
+     * @param name The name of the gauge
+     * @param supplier Provides the current value when the metrics are read
+     */
+    public void gauge (final String name, final LongSupplier supplier)
+    {
+        this.gauges.put (name, supplier);
+    }
+
+
+    /**
+     * Removes a gauge.
+     *
+     * @param name The name of the gauge
+     */
+    public void removeGauge (final String name)
+    {
+        this.gauges.remove (name);
+    }
+
+
+    /**
+     * Adds one to a counter if the registry is enabled.
+     *
+     * @param name The name of the counter
+     */
+    public void count (final String name)
+    {
+        if (this.isEnabled)
+            this.counter (name).increment ();
+    }
+
+
+    /**
+     * Adds to a counter if the registry is enabled.
+     *
+     * @param name The name of the counter
+     * @param delta The value to add
+     */
+    public void count (final String name, final long delta)
+    {
+        if (this.isEnabled)
+            this.counter (name).add (delta);
+    }
+
+
+    /**
+     * Starts a time measurement if the registry is enabled.
+     *
+     * @return The start time to hand to {@link #stopTimer(String, long)}, 0 if disabled
+     */
+    public long startTimer ()
+    {
+        return this.isEnabled ? System.nanoTime () : 0;
+    }
+
+
+    /**
+     * Records the time since the start of a measurement if the registry is enabled.
+     *
+     * @param name The name of the timer
+     * @param startTime The value returned by {@link #startTimer()}, nothing is recorded if it is 0
+     */
+    public void stopTimer (final String name, final long startTime)
+    {
+        if (this.isEnabled && startTime != 0)
+            this.timer (name).record (System.nanoTime () - startTime);
+    }
+
+
+    /**
+     * Removes all counters and timers, which restarts them from zero. Gauges are kept.
+     */
+    public void reset ()
+    {
+        this.counters.clear ();
+        this.timers.clear ();
+    }
+
+
+    /**
+     * Formats the current values of all metrics as one line of JSON. Durations are in nanoseconds.
+     *
+     * @return The JSON object without a line break
+     */
+    public String toJSON ()
+    {
+        final StringBuilder sb = new StringBuilder ("{\"timestamp\":").append (System.currentTimeMillis ());
+
+        sb.append (",\"counters\":{");
+        appendValues (sb, readCounters (this.counters));
+        sb.append ("},\"gauges\":{");
+        appendValues (sb, this.readGauges ());
+        sb.append ("},\"timers\":{");
+        boolean isFirst = true;
+        for (final Map.Entry<String, Timer> entry: new TreeMap<> (this.timers).entrySet ())
+        {
+            if (!isFirst)
+                sb.append (',');
+            isFirst = false;
+            final LatencyHistogram histogram = entry.getValue ().getHistogram ();
+            appendName (sb, entry.getKey ());
+            sb.append ("{\"count\":").append (histogram.getCount ());
+            sb.append (",\"mean\":").append (Math.round (histogram.getMean ()));
+            sb.append (",\"p50\":").append (histogram.getP50 ());
+            sb.append (",\"p99\":").append (histogram.getP99 ());
+            sb.append (",\"p999\":").append (histogram.getP999 ());
+            sb.append (",\"max\":").append (histogram.getMax ()).append ('}');
+        }
+        return sb.append ("}}").toString ();
+    }
+
+
+    /**
+     * Formats the current values of all metrics in a readable form, one metric per line.
+     *
+     * @return The lines
+     */
+    public List<String> toLines ()
+    {
+        final List<String> lines = new ArrayList<> ();
+        for (final Map.Entry<String, Long> entry: readCounters (this.counters).entrySet ())
+            lines.add (entry.getKey () + ": " + entry.getValue ());
+        for (final Map.Entry<String, Long> entry: this.readGauges ().entrySet ())
+            lines.add (entry.getKey () + ": " + entry.getValue ());
+        for (final Map.Entry<String, Timer> entry: new TreeMap<> (this.timers).entrySet ())
+            lines.add (entry.getKey () + ": " + entry.getValue ().getHistogram ().formatNanos ());
+        return lines;
+    }
+
+
+    private Map<String, Long> readGauges ()
+    {
+        final Map<String, Long> values = new TreeMap<> ();
+        for (final Map.Entry<String, LongSupplier> entry: this.gauges.entrySet ())
+            values.put (entry.getKey (), Long.valueOf (entry.getValue ().getAsLong ()));
+        return values;
+    }
+
+
+    private static Map<String, Long> readCounters (final Map<String, Counter> counters)
+    {
+        final Map<String, Long> values = new TreeMap<> ();
+        for (final Map.Entry<String, Counter> entry: counters.entrySet ())
+            values.put (entry.getKey (), Long.valueOf (entry.getValue ().get ()));
+        return values;
+    }
+
+
+    private static void appendValues (final StringBuilder sb, final Map<String, Long> values)
+    {
+        boolean isFirst = true;
+        for (final Map.Entry<String, Long> entry: values.entrySet ())
+        {
+            if (!isFirst)
+                sb.append (',');
+            isFirst = false;
+            appendName (sb, entry.getKey ());
+            sb.append (entry.getValue ());
+        }
+    }
+
+
+    private static void appendName (final StringBuilder sb, final String name)
+    {
+        sb.append ('"');
+        for (int i = 0; i < name.length (); i++)
+        {
+            final char c = name.charAt (i);
+            if (c == '"' || c == '\\')
+                sb.append ('\\').append (c);
+            else if (c < 0x20)
+                sb.append (String.format ("\\u%04x", Integer.valueOf (c)));
+            else
+                sb.append (c);
+        }
+        sb.append ("\":");
+    }
+}
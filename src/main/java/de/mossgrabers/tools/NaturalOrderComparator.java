@@ -0,0 +1,32 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.util.Comparator;
+
+
+/**
+ * Compares texts in natural order, e.g. 'Piano 2' before 'Piano 10'. The texts are compared in
+ * place without creating their sort keys, therefore a comparison does not allocate. Since each
+ * comparison walks over both texts again, large lists are sorted faster with
+ * {@link StringUtils#sortNatural(java.util.List)}, which creates the key of each element once.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class NaturalOrderComparator implements Comparator<String>
+{
+    /** The shared instance, the comparator has no state. */
+    public static final NaturalOrderComparator INSTANCE = new NaturalOrderComparator ();
+
+
+    /** {@inheritDoc} */
+    @Override
+    public int compare (final String text1, final String text2)
+    {
+        final int result = StringUtils.compareNaturalSortKeys (text1, text2);
+        // Texts which only differ in case or leading zeros still need a stable order
+        return result == 0 ? text1.compareTo (text2) : result;
+    }
+}
@@ -5,7 +5,9 @@
 package de.mossgrabers.tools;
 
 /**
- * Helper class for storing a pair of values.
+ * Helper class for storing a pair of values. See {@link ImmutablePair} for an immutable variant and
+ * {@link IntIntPair}, {@link IntObjPair} and {@link LongLongPair} to store primitive values without
+ * boxing them.
  *
  * @param <T1> The type of the first value
  * @param <T2> The type of the second value
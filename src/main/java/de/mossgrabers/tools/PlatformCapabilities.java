@@ -0,0 +1,287 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Probes the resources of the platform on which the JVM runs, e.g. to size thread pools. The number
+ * of processors and the memory size are taken from the JVM, which already reports the effective
+ * limits of a container (Linux control groups), therefore a container is not oversubscribed.
+ * <p>
+ * The parallel I/O functions of this library (the {@link DirectoryScanner}, the
+ * {@link ChecksumService}, the {@link FileFingerprintCache} and copying or moving several files
+ * with {@link FileUtils}) take their default parallelism from {@link #getCPUParallelism()} or
+ * {@link #getIOParallelism()}.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class PlatformCapabilities
+{
+    private static final long                    UNKNOWN                 = -1;
+    private static final int                     DEFAULT_PAGE_SIZE       = 4096;
+    private static final int                     MAX_IO_PARALLELISM      = 16;
+    /** The number of file descriptors which one I/O worker might need at the same time. */
+    private static final int                     FILE_DESCRIPTORS_PER_IO = 8;
+    /** The memory which one I/O worker might need for buffers and parsing. */
+    private static final long                    MEMORY_PER_IO           = 32L * 1024 * 1024;
+    /** The maximum number of folders for which the type of their file system is cached. */
+    private static final int                     MAX_CACHED_FOLDERS      = 1024;
+    private static final Set<String>             REMOTE_FILE_SYSTEMS     = Set.of ("nfs", "nfs4", "cifs", "smbfs", "smb2", "smb3", "afpfs", "webdav", "davfs", "fuse.sshfs", "sshfs", "9p", "afs", "ncpfs", "fuse.rclone", "fuse.s3fs");
+
+    private static final OperatingSystemMXBean   OS_BEAN                 = ManagementFactory.getOperatingSystemMXBean ();
+    private static final int                     PAGE_SIZE               = readPageSize ();
+    private static final boolean                 IS_64_BIT               = !"32".equals (System.getProperty ("sun.arch.data.model"));
+
+    private static final Map<FileStore, Boolean> REMOTE_STORES           = new ConcurrentHashMap<> ();
+    private static final Map<Path, Boolean>      REMOTE_FOLDERS          = new ConcurrentHashMap<> ();
+
+
+    /**
+     * Private due to helper class.
+     */
+    private PlatformCapabilities ()
+    {
+        // Intentionally empty
+    }
+
+
+    /**
+     * Get the number of processors which the JVM can effectively use. The JVM limits the number of
+     * available processors by the CPU quota of the container, if any.
+     *
+     * @return The number of processors, at least 1
+     */
+    public static int getAvailableProcessors ()
+    {
+        return Math.max (1, Runtime.getRuntime ().availableProcessors ());
+    }
+
+
+    /**
+     * Get the size of the physical memory which is available to the JVM.
+     *
+     * @return The memory limit of the container, if any, otherwise the size of the physical memory
+     *         of the machine in bytes, -1 if unknown
+     */
+    public static long getMemoryLimit ()
+    {
+        if (OS_BEAN instanceof final com.sun.management.OperatingSystemMXBean bean)
+            return bean.getTotalMemorySize ();
+        return UNKNOWN;
+    }
+
+
+    /**
+     * Get the size of a memory page of the operating system. Memory mapped files are mapped in
+     * multiples of it.
+     *
+     * @return The page size in bytes
+     */
+    public static int getPageSize ()
+    {
+        return PAGE_SIZE;
+    }
+
+
+    /**
+     * Get the maximum number of file descriptors which the process can open.
+     *
+     * @return The maximum number or -1 if unknown, e.g. on Windows
+     */
+    public static long getMaxFileDescriptors ()
+    {
+        if (OS_BEAN instanceof final com.sun.management.UnixOperatingSystemMXBean bean)
+            return bean.getMaxFileDescriptorCount ();
+        return UNKNOWN;
+    }
+
+
+    /**
+     * Get the number of file descriptors which the process has currently open.
+     *
+     * @return The number or -1 if unknown, e.g. on Windows
+     */
+    public static long getOpenFileDescriptors ()
+    {
+        if (OS_BEAN instanceof final com.sun.management.UnixOperatingSystemMXBean bean)
+            return bean.getOpenFileDescriptorCount ();
+        return UNKNOWN;
+    }
+
+
+    /**
+     * Check if a file should be read by mapping it into memory. That is not the case on network
+     * file systems (each page fault becomes a network request and a file which is truncated by
+     * another machine crashes the reader) and in a 32-bit JVM (which runs out of address space).
+     * The type of the file system is cached per folder, therefore checking many files of the same
+     * folder is cheap.
+     *
+     * @param file The file or a folder on the same file system
+     * @return True if mapping is efficient
+     */
+    public static boolean isMemoryMappingEfficient (final Path file)
+    {
+        return IS_64_BIT && !isRemote (file);
+    }
+
+
+    /**
+     * Check if FileChannel.transferTo copies the data efficiently between files on the file system
+     * of the given file, i.e. without moving it through user space. On network file systems the data
+     * needs to travel through the machine anyway and a plain buffered copy is more robust.
+     *
+     * @param file The file or a folder on the same file system
+     * @return True if transferTo is efficient
+     */
+    public static boolean isTransferToEfficient (final Path file)
+    {
+        return !isRemote (file);
+    }
+
+
+    /**
+     * Get the number of threads to use for CPU-bound work like parsing or calculating checksums.
+     *
+     * @return The number of effectively available processors
+     */
+    public static int getCPUParallelism ()
+    {
+        return getAvailableProcessors ();
+    }
+
+
+    /**
+     * Get the number of threads to use for I/O-bound work like scanning folders or copying files.
+     * Starts with two threads per processor (since the threads mostly wait for the storage) but at
+     * most 16 and reduces it to fit into the free file descriptors and the memory limit.
+     *
+     * @return The number of threads, at least 1
+     */
+    public static int getIOParallelism ()
+    {
+        long parallelism = Math.min (MAX_IO_PARALLELISM, 2L * getAvailableProcessors ());
+
+        final long maxDescriptors = getMaxFileDescriptors ();
+        final long openDescriptors = getOpenFileDescriptors ();
+        if (maxDescriptors > 0 && openDescriptors >= 0)
+            parallelism = Math.min (parallelism, (maxDescriptors - openDescriptors) / FILE_DESCRIPTORS_PER_IO);
+
+        final long memory = getMemoryLimit ();
+        if (memory > 0)
+            parallelism = Math.min (parallelism, memory / MEMORY_PER_IO);
+
+        return (int) Math.max (1, parallelism);
+    }
+
+
+    /**
+     * Get a summary of all capabilities, e.g. for logging.
+     *
+     * @return The summary in one line
+     */
+    public static String getSummary ()
+    {
+        return String.format ("processors=%d, memory=%dMB, pageSize=%d, fileDescriptors=%d/%d, cpuParallelism=%d, ioParallelism=%d", Integer.valueOf (getAvailableProcessors ()), Long.valueOf (getMemoryLimit () / (1024 * 1024)), Integer.valueOf (getPageSize ()), Long.valueOf (getOpenFileDescriptors ()), Long.valueOf (getMaxFileDescriptors ()), Integer.valueOf (getCPUParallelism ()), Integer.valueOf (getIOParallelism ()));
+    }
+
+
+    private static boolean isRemote (final Path file)
+    {
+        final Path absolute = file.toAbsolutePath ();
+        final Path folder = absolute.getParent ();
+        if (folder == null)
+            return isRemoteUncached (absolute);
+
+        final Boolean isRemote = REMOTE_FOLDERS.get (folder);
+        if (isRemote != null)
+            return isRemote.booleanValue ();
+        // Mounts change rarely, dropping all entries at once is enough to bound the cache
+        if (REMOTE_FOLDERS.size () >= MAX_CACHED_FOLDERS)
+            REMOTE_FOLDERS.clear ();
+        final boolean isFolderRemote = isRemoteUncached (folder);
+        REMOTE_FOLDERS.put (folder, Boolean.valueOf (isFolderRemote));
+        return isFolderRemote;
+    }
+
+
+    private static boolean isRemoteUncached (final Path absolute)
+    {
+        // UNC paths on Windows are network shares
+        if (absolute.toString ().startsWith ("\\\\"))
+            return true;
+
+        // The file might not exist yet, e.g. the target of a copy
+        Path existing = absolute;
+        while (existing != null && !Files.exists (existing))
+            existing = existing.getParent ();
+        if (existing == null)
+            return false;
+
+        try
+        {
+            final FileStore store = Files.getFileStore (existing);
+            return REMOTE_STORES.computeIfAbsent (store, key -> Boolean.valueOf (REMOTE_FILE_SYSTEMS.contains (key.type ().toLowerCase (Locale.ENGLISH)))).booleanValue ();
+        }
+        catch (final IOException _)
+        {
+            return false;
+        }
+    }
+
+
+    private static int readPageSize ()
+    {
+        if (OperatingSystem.get () == OperatingSystem.LINUX)
+        {
+            // The first mapping of the process shows the size of its pages, e.g. "KernelPageSize: 4 kB"
+            try (final BufferedReader reader = Files.newBufferedReader (Path.of ("/proc/self/smaps"), StandardCharsets.US_ASCII))
+            {
+                String line;
+                while ((line = reader.readLine ()) != null)
+                {
+                    if (line.startsWith ("KernelPageSize:"))
+                    {
+                        final String [] parts = line.substring (15).trim ().split ("\\s+");
+                        final long size = parseLong (parts[0]);
+                        if (size > 0)
+                            return (int) (parts.length > 1 && "kB".equals (parts[1]) ? size * 1024 : size);
+                        break;
+                    }
+                }
+            }
+            catch (final IOException | RuntimeException _)
+            {
+                // Fall back to the default
+            }
+        }
+        return OperatingSystem.get () == OperatingSystem.MAC_ARM ? 16384 : DEFAULT_PAGE_SIZE;
+    }
+
+
+    private static long parseLong (final String text)
+    {
+        try
+        {
+            return Long.parseLong (text);
+        }
+        catch (final NumberFormatException _)
+        {
+            return UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * A compact character trie which counts how many of the added names share a prefix. The nodes are
+ * stored in parallel arrays (first child / next sibling) instead of node objects, therefore
+ * thousands of names only need a few arrays.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class PrefixTrie
+{
+    private static final int   ROOT  = 0;
+    private static final int   NONE  = -1;
+
+    private final List<String> names = new ArrayList<> ();
+    private char []            labels;
+    private int []             firstChild;
+    private int []             nextSibling;
+    private int []             counts;
+    private int                nodeCount;
+
+
+    /**
+     * Constructor.
+     */
+    public PrefixTrie ()
+    {
+        this (256);
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param expectedNodes The expected number of nodes, the trie grows if necessary
+     */
+    public PrefixTrie (final int expectedNodes)
+    {
+        final int capacity = Math.max (16, expectedNodes);
+        this.labels = new char [capacity];
+        this.firstChild = new int [capacity];
+        this.nextSibling = new int [capacity];
+        this.counts = new int [capacity];
+        this.createNode ('\0');
+    }
+
+
+    /**
+     * Add a name to the trie.
+     *
+     * @param name The name to add
+     */
+    public void add (final String name)
+    {
+        this.names.add (name);
+
+        int node = ROOT;
+        this.counts[node]++;
+        for (int i = 0; i < name.length (); i++)
+        {
+            node = this.getOrCreateChild (node, name.charAt (i));
+            this.counts[node]++;
+        }
+    }
+
+
+    /**
+     * Get the number of added names.
+     *
+     * @return The number of names
+     */
+    public int size ()
+    {
+        return this.names.size ();
+    }
+
+
+    /**
+     * Get the number of added names which start with the given prefix.
+     *
+     * @param prefix The prefix
+     * @return The number of names
+     */
+    public int getCount (final CharSequence prefix)
+    {
+        int node = ROOT;
+        for (int i = 0; i < prefix.length () && node != NONE; i++)
+            node = this.findChild (node, prefix.charAt (i));
+        return node == NONE ? 0 : this.counts[node];
+    }
+
+
+    /**
+     * Groups the added names by their shared stem. All names which are identical in the first
+     * minPrefixLength characters are put into the same group. The key of a group is the longest
+     * common prefix of all its members.
+     *
+     * @param minPrefixLength The minimum number of characters which must be shared by the names of
+     *            a group
+     * @return The groups in the order in which their first member appeared
+     */
+    public Map<String, List<String>> groupByPrefix (final int minPrefixLength)
+    {
+        final int [] groupOfNode = new int [this.nodeCount];
+        Arrays.fill (groupOfNode, NONE);
+        final List<List<String>> groups = new ArrayList<> ();
+        final List<int []> anchors = new ArrayList<> ();
+
+        for (final String name: this.names)
+        {
+            // Walk down to the node which identifies the group
+            final int depth = Math.min (minPrefixLength, name.length ());
+            int node = ROOT;
+            for (int i = 0; i < depth; i++)
+                node = this.findChild (node, name.charAt (i));
+
+            int group = groupOfNode[node];
+            if (group == NONE)
+            {
+                group = groups.size ();
+                groupOfNode[node] = group;
+                groups.add (new ArrayList<> ());
+                anchors.add (new int []
+                {
+                    node,
+                    depth
+                });
+            }
+            groups.get (group).add (name);
+        }
+
+        final Map<String, List<String>> result = new LinkedHashMap<> (groups.size () * 2);
+        for (int i = 0; i < groups.size (); i++)
+        {
+            final List<String> members = groups.get (i);
+            final int [] anchor = anchors.get (i);
+            final int depth = anchor[1] + this.getUnbranchedLength (anchor[0]);
+            result.put (members.get (0).substring (0, depth), members);
+        }
+        return result;
+    }
+
+
+    /**
+     * Count how many nodes can be followed from the given node downwards which are shared by all
+     * names passing the node.
+     *
+     * @param startNode The node to start from
+     * @return The number of nodes
+     */
+    private int getUnbranchedLength (final int startNode)
+    {
+        int node = startNode;
+        int length = 0;
+        while (true)
+        {
+            final int child = this.firstChild[node];
+            if (child == NONE || this.nextSibling[child] != NONE || this.counts[child] != this.counts[node])
+                return length;
+            node = child;
+            length++;
+        }
+    }
+
+
+    private int findChild (final int node, final char c)
+    {
+        int child = this.firstChild[node];
+        while (child != NONE && this.labels[child] != c)
+            child = this.nextSibling[child];
+        return child;
+    }
+
+
+    private int getOrCreateChild (final int node, final char c)
+    {
+        final int child = this.findChild (node, c);
+        if (child != NONE)
+            return child;
+
+        final int newNode = this.createNode (c);
+        this.nextSibling[newNode] = this.firstChild[node];
+        this.firstChild[node] = newNode;
+        return newNode;
+    }
+
+
+    private int createNode (final char label)
+    {
+        if (this.nodeCount == this.labels.length)
+        {
+            final int capacity = this.labels.length * 2;
+            this.labels = Arrays.copyOf (this.labels, capacity);
+            this.firstChild = Arrays.copyOf (this.firstChild, capacity);
+            this.nextSibling = Arrays.copyOf (this.nextSibling, capacity);
+            this.counts = Arrays.copyOf (this.counts, capacity);
+        }
+
+        final int node = this.nodeCount++;
+        this.labels[node] = label;
+        this.firstChild[node] = NONE;
+        this.nextSibling[node] = NONE;
+        this.counts[node] = 0;
+        return node;
+    }
+}
@@ -0,0 +1,629 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Measures the time of named, nested spans with System.nanoTime. A span which is started while
+ * another span is open on the same thread becomes its child. The durations of all spans with the
+ * same path are aggregated into a {@link LatencyHistogram}, which is thread-safe, therefore spans of
+ * several worker threads can be collected by the same profiler. Workers can continue the tree of
+ * another thread by starting their spans with an explicit parent.
+ * <p>
+ * If resource accounting is enabled, each span additionally measures the CPU time and the bytes
+ * allocated by its thread (read from the ThreadMXBean at the start and the end of the span). This
+ * tells if a slow span is CPU-bound, allocation-bound or waiting, e.g. for I/O. Both values are 0 if
+ * the JVM does not support measuring them or if the span is stopped on another thread than the one
+ * which started it. The measuring of the JVM is only switched on when it is needed for the first
+ * time, since it affects all threads.
+ * <p>
+ * Typical use:
+ *
+ * <pre>
+ * try (final Profiler.Span span = profiler.start ("load"))
+ * {
+ *     parse ();
+ *     span.lap ("parse");
+ *     convert ();
+ *     span.lap ("convert");
+ * }
+ * profiler.printReport (System.out);
+ * </pre>
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class Profiler
+{
+    /**
+     * The aggregated durations of all spans with the same path.
+     *
+     * @param path The names of the span and of its parents separated by '/'
+     * @param depth The nesting level, 0 for top level spans
+     * @param count The number of measured spans
+     * @param totalNanos The sum of all durations in nanoseconds
+     * @param p50Nanos The median duration in nanoseconds
+     * @param p99Nanos The 99th percentile of the durations in nanoseconds
+     * @param maxNanos The longest duration in nanoseconds
+     * @param cpuNanos The sum of the CPU time of the threads during the spans in nanoseconds
+     * @param allocatedBytes The sum of the bytes allocated by the threads during the spans
+     */
+    public record SpanStatistics (String path, int depth, long count, long totalNanos, long p50Nanos, long p99Nanos, long maxNanos, long cpuNanos, long allocatedBytes)
+    {
+        /**
+         * Get the average duration.
+         *
+         * @return The average duration in nanoseconds
+         */
+        public long meanNanos ()
+        {
+            return this.count == 0 ? 0 : this.totalNanos / this.count;
+        }
+
+
+        /**
+         * Get the share of the duration in which the threads were running on a CPU.
+         *
+         * @return The CPU time divided by the duration, 0 if nothing was measured
+         */
+        public double cpuRatio ()
+        {
+            return this.totalNanos == 0 ? 0 : (double) this.cpuNanos / this.totalNanos;
+        }
+    }
+
+
+    private static final Profiler          DEFAULT_PROFILER = new Profiler ();
+    private static final int               NAME_WIDTH       = 40;
+    private static final int               NUMBER_WIDTH     = 12;
+
+    private final Node                     root             = new Node ("");
+    private final ThreadLocal<Deque<Span>> openSpans        = ThreadLocal.withInitial (ArrayDeque::new);
+    private volatile boolean               measureResources;
+
+
+    /**
+     * Constructor. Measures only the wall time of the spans.
+     */
+    public Profiler ()
+    {
+        this (false);
+    }
+
+
+    /**
+     * Constructor.
+     *
+     * @param measureResources If true, the CPU time and the allocated bytes of the spans are
+     *            measured as well
+     */
+    public Profiler (final boolean measureResources)
+    {
+        if (measureResources)
+            ResourceSupport.enable ();
+        this.measureResources = measureResources;
+    }
+
+
+    /**
+     * Get a profiler which is shared by the application. Measures only the wall time of the spans
+     * unless enabled with {@link #setMeasureResources(boolean)}.
+     *
+     * @return The default profiler
+     */
+    public static Profiler getDefault ()
+    {
+        return DEFAULT_PROFILER;
+    }
+
+
+    /**
+     * Check if the CPU time and the allocated bytes of the spans are measured.
+     *
+     * @return True if enabled
+     */
+    public boolean isMeasureResources ()
+    {
+        return this.measureResources;
+    }
+
+
+    /**
+     * Enables or disables the measuring of the CPU time and the allocated bytes of the spans. Only
+     * affects spans which are started afterwards.
+     *
+     * @param measureResources True to enable
+     */
+    public void setMeasureResources (final boolean measureResources)
+    {
+        if (measureResources)
+            ResourceSupport.enable ();
+        this.measureResources = measureResources;
+    }
+
+
+    /**
+     * Starts a span. If another span is open on the current thread, the new span becomes its child.
+     * The span should be stopped on the same thread. If it is stopped on another thread, it is
+     * removed from the open spans of the starting thread when that thread starts its next span.
+     *
+     * @param name The name of the span
+     * @return The started span
+     */
+    public Span start (final String name)
+    {
+        final Deque<Span> stack = this.openSpans.get ();
+        // Drop spans which were stopped on another thread
+        Span parent = stack.peekFirst ();
+        while (parent != null && parent.isStopped ())
+        {
+            stack.pop ();
+            parent = stack.peekFirst ();
+        }
+        return this.start (stack, parent == null ? this.root : parent.node, name);
+    }
+
+
+    /**
+     * Starts a span as a child of the given span, e.g. a span of a worker thread which belongs to a
+     * span of the thread which started the work. The span must be stopped on the current thread.
+     *
+     * @param parent The parent span, might be open on another thread
+     * @param name The name of the span
+     * @return The started span
+     */
+    public Span start (final Span parent, final String name)
+    {
+        return this.start (this.openSpans.get (), parent.node, name);
+    }
+
+
+    /**
+     * Get the aggregated durations of all spans. The spans are ordered as a tree, children follow
+     * their parent sorted by their total duration.
+     *
+     * @return The statistics
+     */
+    public List<SpanStatistics> getStatistics ()
+    {
+        final List<SpanStatistics> statistics = new ArrayList<> ();
+        for (final Node child: this.root.getSortedChildren ())
+            child.collect (statistics, "", 0);
+        return statistics;
+    }
+
+
+    /**
+     * Writes the aggregated durations of all spans as a tree with the count, total, mean, median,
+     * 99th percentile and maximum duration (in milliseconds) of each span. If resources are
+     * measured, the CPU time (in milliseconds) and the allocated memory (in megabytes) of the spans
+     * follow the total duration.
+     *
+     * @param out Where to write the report to
+     * @throws IOException Could not write the report
+     */
+    public void writeReport (final Appendable out) throws IOException
+    {
+        final boolean withResources = this.measureResources;
+        final int [] widths = new int [withResources ? 9 : 7];
+        Arrays.fill (widths, NUMBER_WIDTH);
+        widths[0] = NAME_WIDTH;
+        final TextTableWriter writer = new TextTableWriter (out, widths);
+        for (int i = 1; i < writer.getColumnCount (); i++)
+            writer.setAlignment (i, TextTableWriter.Alignment.RIGHT);
+
+        if (withResources)
+            writer.writeRow ("Span", "Count", "Total ms", "CPU ms", "Alloc MB", "Mean ms", "p50 ms", "p99 ms", "Max ms");
+        else
+            writer.writeRow ("Span", "Count", "Total ms", "Mean ms", "p50 ms", "p99 ms", "Max ms");
+        writer.writeSeparator ('-');
+        for (final SpanStatistics span: this.getStatistics ())
+        {
+            final String path = span.path ();
+            final String name = "  ".repeat (span.depth ()) + path.substring (path.lastIndexOf ('/') + 1);
+            if (withResources)
+                writer.writeRow (name, Long.toString (span.count ()), formatMillis (span.totalNanos ()), formatMillis (span.cpuNanos ()), formatMegabytes (span.allocatedBytes ()), formatMillis (span.meanNanos ()), formatMillis (span.p50Nanos ()), formatMillis (span.p99Nanos ()), formatMillis (span.maxNanos ()));
+            else
+                writer.writeRow (name, Long.toString (span.count ()), formatMillis (span.totalNanos ()), formatMillis (span.meanNanos ()), formatMillis (span.p50Nanos ()), formatMillis (span.p99Nanos ()), formatMillis (span.maxNanos ()));
+        }
+    }
+
+
+    /**
+     * Get the report as a text.
+     *
+     * @return The report
+     * @see #writeReport(Appendable)
+     */
+    public String getReport ()
+    {
+        final StringBuilder sb = new StringBuilder ();
+        try
+        {
+            this.writeReport (sb);
+        }
+        catch (final IOException ex)
+        {
+            // Cannot happen with a StringBuilder
+            throw new IllegalStateException (ex);
+        }
+        return sb.toString ();
+    }
+
+
+    /**
+     * Print the report.
+     *
+     * @param out The print stream to write to
+     * @see #writeReport(Appendable)
+     */
+    public void printReport (final PrintStream out)
+    {
+        out.print (this.getReport ());
+    }
+
+
+    /**
+     * Get the distribution of the durations of a span.
+     *
+     * @param path The names of the span and of its parents separated by '/'
+     * @return The histogram of the durations in nanoseconds or null if there is no such span
+     */
+    public LatencyHistogram getHistogram (final String path)
+    {
+        Node node = this.root;
+        for (final String name: path.split ("/"))
+        {
+            node = node.children.get (name);
+            if (node == null)
+                return null;
+        }
+        return node.histogram;
+    }
+
+
+    /**
+     * Removes all collected durations. Spans which are currently open are still recorded when they
+     * are stopped but are not part of the report anymore.
+     */
+    public void reset ()
+    {
+        this.root.children.clear ();
+    }
+
+
+    private Span start (final Deque<Span> stack, final Node parentNode, final String name)
+    {
+        final Span span = new Span (parentNode.getChild (name), stack, this.measureResources);
+        stack.push (span);
+        return span;
+    }
+
+
+    private static String formatMillis (final long nanos)
+    {
+        return String.format (Locale.US, "%.3f", Double.valueOf (nanos / 1_000_000.0));
+    }
+
+
+    private static String formatMegabytes (final long bytes)
+    {
+        return String.format (Locale.US, "%.3f", Double.valueOf (bytes / (1024.0 * 1024.0)));
+    }
+
+
+    /**
+     * Get the CPU time of the current thread. Switches on the measuring of the JVM when called for
+     * the first time.
+     *
+     * @return The CPU time in nanoseconds, 0 if not supported
+     */
+    static long getCurrentThreadCpuTime ()
+    {
+        return ResourceSupport.IS_CPU_SUPPORTED ? Math.max (0, ResourceSupport.THREAD_BEAN.getCurrentThreadCpuTime ()) : 0;
+    }
+
+
+    /**
+     * Get the number of bytes which were allocated on the heap by the current thread since it was
+     * started. Switches on the measuring of the JVM when called for the first time.
+     *
+     * @return The number of bytes, 0 if not supported
+     */
+    static long getCurrentThreadAllocatedBytes ()
+    {
+        return ResourceSupport.IS_MEM_SUPPORTED ? Math.max (0, ((com.sun.management.ThreadMXBean) ResourceSupport.THREAD_BEAN).getCurrentThreadAllocatedBytes ()) : 0;
+    }
+
+
+    /**
+     * Switches on the measuring of the CPU time and the allocated bytes of threads in the JVM when
+     * the class is loaded, which happens on the first use.
+     */
+    private static final class ResourceSupport
+    {
+        static final ThreadMXBean THREAD_BEAN      = ManagementFactory.getThreadMXBean ();
+        static final boolean      IS_CPU_SUPPORTED = isCpuTimeSupported ();
+        static final boolean      IS_MEM_SUPPORTED = isAllocationSupported ();
+
+
+        /**
+         * Private due to helper class.
+         */
+        private ResourceSupport ()
+        {
+            // Intentionally empty
+        }
+
+
+        /**
+         * Loads the class, if not already done.
+         */
+        static void enable ()
+        {
+            // Intentionally empty, the static fields are initialized when the class is loaded
+        }
+
+
+        private static boolean isCpuTimeSupported ()
+        {
+            try
+            {
+                if (!THREAD_BEAN.isCurrentThreadCpuTimeSupported ())
+                    return false;
+                if (!THREAD_BEAN.isThreadCpuTimeEnabled ())
+                    THREAD_BEAN.setThreadCpuTimeEnabled (true);
+                return true;
+            }
+            catch (final UnsupportedOperationException | SecurityException _)
+            {
+                return false;
+            }
+        }
+
+
+        private static boolean isAllocationSupported ()
+        {
+            if (!(THREAD_BEAN instanceof final com.sun.management.ThreadMXBean bean))
+                return false;
+            try
+            {
+                if (!bean.isThreadAllocatedMemorySupported ())
+                    return false;
+                if (!bean.isThreadAllocatedMemoryEnabled ())
+                    bean.setThreadAllocatedMemoryEnabled (true);
+                return true;
+            }
+            catch (final UnsupportedOperationException | SecurityException _)
+            {
+                return false;
+            }
+        }
+    }
+
+
+    /**
+     * A running measurement. Stopping (or closing) it adds its duration to the statistics of its
+     * path.
+     */
+    public static final class Span implements AutoCloseable
+    {
+        private final Node        node;
+        private final Deque<Span> stack;
+        private final Thread      thread;
+        private final boolean     measureResources;
+        private final long        startCpuTime;
+        private final long        startAllocated;
+        private final long        startTime;
+        private long              lapTime;
+        private long              lapCpuTime;
+        private long              lapAllocated;
+        private volatile long     duration = -1;
+        private long              cpuTime;
+        private long              allocated;
+
+
+        Span (final Node node, final Deque<Span> stack, final boolean measureResources)
+        {
+            this.node = node;
+            this.stack = stack;
+            this.thread = Thread.currentThread ();
+            this.measureResources = measureResources;
+            this.startCpuTime = measureResources ? getCurrentThreadCpuTime () : 0;
+            this.startAllocated = measureResources ? getCurrentThreadAllocatedBytes () : 0;
+            this.lapCpuTime = this.startCpuTime;
+            this.lapAllocated = this.startAllocated;
+            // Read the clock last to not include the reading of the resources
+            this.startTime = System.nanoTime ();
+            this.lapTime = this.startTime;
+        }
+
+
+        /**
+         * Get the time since the span was started. The span keeps running.
+         *
+         * @return The elapsed time in nanoseconds
+         */
+        public long split ()
+        {
+            return System.nanoTime () - this.startTime;
+        }
+
+
+        /**
+         * Records the time since the previous lap (or the start of the span) as a child span with
+         * the given name. The span keeps running. The CPU time and the allocated bytes of the lap
+         * are only measured on the thread which started the span.
+         *
+         * @param name The name of the lap
+         * @return The duration of the lap in nanoseconds
+         */
+        public long lap (final String name)
+        {
+            final long now = System.nanoTime ();
+            final long lap = now - this.lapTime;
+            this.lapTime = now;
+            long lapCpu = 0;
+            long lapMemory = 0;
+            if (this.measureResources && this.thread == Thread.currentThread ())
+            {
+                final long cpuNow = getCurrentThreadCpuTime ();
+                final long allocatedNow = getCurrentThreadAllocatedBytes ();
+                lapCpu = cpuNow - this.lapCpuTime;
+                lapMemory = allocatedNow - this.lapAllocated;
+                this.lapCpuTime = cpuNow;
+                this.lapAllocated = allocatedNow;
+            }
+            this.node.getChild (name).record (lap, lapCpu, lapMemory);
+            return lap;
+        }
+
+
+        /**
+         * Stops the span and records its duration. Calling it again has no effect. If it is
+         * called on another thread than the one which started the span, the CPU time and the
+         * allocated bytes are not measured, since the values of the two threads cannot be
+         * compared, and the span is removed from the open spans of the starting thread when that
+         * thread starts its next span.
+         *
+         * @return The duration of the span in nanoseconds
+         */
+        public long stop ()
+        {
+            if (this.duration < 0)
+            {
+                final long now = System.nanoTime ();
+                final boolean isStartThread = this.thread == Thread.currentThread ();
+                if (this.measureResources && isStartThread)
+                {
+                    this.cpuTime = getCurrentThreadCpuTime () - this.startCpuTime;
+                    this.allocated = getCurrentThreadAllocatedBytes () - this.startAllocated;
+                }
+                this.duration = now - this.startTime;
+                this.node.record (this.duration, this.cpuTime, this.allocated);
+
+                // The stack is not thread-safe, only the starting thread modifies it
+                if (isStartThread)
+                {
+                    // Normally the span is the top one but be tolerant to spans which were not
+                    // closed
+                    if (this.stack.peekFirst () == this)
+                        this.stack.pop ();
+                    else
+                        this.stack.removeFirstOccurrence (this);
+                }
+            }
+            return this.duration;
+        }
+
+
+        /**
+         * Get the CPU time which the thread used during the span. Only measured if resource
+         * accounting was enabled when the span was started.
+         *
+         * @return The CPU time in nanoseconds, 0 if the span is still running, was stopped on
+         *         another thread or nothing was measured
+         */
+        public long getCpuNanos ()
+        {
+            return this.cpuTime;
+        }
+
+
+        /**
+         * Get the number of bytes which the thread allocated during the span. Only measured if
+         * resource accounting was enabled when the span was started.
+         *
+         * @return The number of bytes, 0 if the span is still running, was stopped on another
+         *         thread or nothing was measured
+         */
+        public long getAllocatedBytes ()
+        {
+            return this.allocated;
+        }
+
+
+        /**
+         * Check if the span was stopped.
+         *
+         * @return True if stopped
+         */
+        public boolean isStopped ()
+        {
+            return this.duration >= 0;
+        }
+
+
+        /** {@inheritDoc} */
+        @Override
+        public void close ()
+        {
+            this.stop ();
+        }
+    }
+
+
+    /** The aggregated statistics of one path in the span tree. */
+    private static final class Node
+    {
+        private final String            name;
+        private final Map<String, Node> children  = new ConcurrentHashMap<> ();
+        private final LongAdder         cpuTotal  = new LongAdder ();
+        private final LongAdder         allocated = new LongAdder ();
+        private final LatencyHistogram  histogram = new LatencyHistogram ();
+
+
+        Node (final String name)
+        {
+            this.name = name;
+        }
+
+
+        Node getChild (final String childName)
+        {
+            final Node child = this.children.get (childName);
+            return child == null ? this.children.computeIfAbsent (childName, key -> new Node (key)) : child;
+        }
+
+
+        void record (final long nanos, final long cpuNanos, final long allocatedBytes)
+        {
+            this.cpuTotal.add (cpuNanos);
+            this.allocated.add (allocatedBytes);
+            this.histogram.record (nanos);
+        }
+
+
+        List<Node> getSortedChildren ()
+        {
+            final List<Node> sorted = new ArrayList<> (this.children.values ());
+            sorted.sort (Comparator.comparingLong ((final Node node) -> node.histogram.getSum ()).reversed ());
+            return sorted;
+        }
+
+
+        void collect (final List<SpanStatistics> statistics, final String parentPath, final int depth)
+        {
+            final String path = parentPath.isEmpty () ? this.name : parentPath + "/" + this.name;
+            statistics.add (new SpanStatistics (path, depth, this.histogram.getCount (), this.histogram.getSum (), this.histogram.getP50 (), this.histogram.getP99 (), this.histogram.getMax (), this.cpuTotal.sum (), this.allocated.sum ()));
+            for (final Node child: this.getSortedChildren ())
+                child.collect (statistics, path, depth + 1);
+        }
+    }
+}
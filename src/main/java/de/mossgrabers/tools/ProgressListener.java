@@ -0,0 +1,28 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+/**
+ * Gets notified about the progress of a long running operation, e.g. copying files.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+@FunctionalInterface
+public interface ProgressListener
+{
+    /** A listener which ignores all progress. */
+    ProgressListener NONE = (_, _) -> {
+        // Intentionally empty
+    };
+
+
+    /**
+     * The progress changed. Might be called from several threads.
+     *
+     * @param done The amount of work which is done, e.g. the number of copied bytes
+     * @param total The total amount of work
+     */
+    void progressChanged (long done, long total);
+}
@@ -0,0 +1,182 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A bounded pool to de-duplicate strings, e.g. names and tags which are read from many files.
+ * Passing a string through the pool returns an equal string which is already in the pool, the
+ * given instance can then be garbage collected.
+ * <p>
+ * The pool is a lock-free, fixed size hash table where each slot holds one string. If two strings
+ * map to the same slot the newer one replaces the older one. Therefore, the pool never grows and
+ * keeps the recently used strings, but it might not find every duplicate.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class StringPool
+{
+    /** Estimated size of a String object and its array header in bytes. */
+    private static final int                   STRING_OVERHEAD = 40;
+
+    private final AtomicReferenceArray<String> slots;
+    private final int                          mask;
+    private final LongAdder                    hits            = new LongAdder ();
+    private final LongAdder                    misses          = new LongAdder ();
+    private final LongAdder                    savedBytes      = new LongAdder ();
+
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The maximum number of strings in the pool, rounded up to the next power of 2
+     */
+    public StringPool (final int capacity)
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException ("The capacity must be positive.");
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit (capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<> (size);
+        this.mask = size - 1;
+    }
+
+
+    /**
+     * Get the pooled instance of the given text. If there is no equal text in the pool, the given
+     * text is added and returned.
+     *
+     * @param text The text, may be null
+     * @return The pooled text, null if the text is null
+     */
+    public String get (final String text)
+    {
+        if (text == null)
+            return null;
+
+        final int index = spread (text.hashCode ()) & this.mask;
+        final String pooled = this.slots.get (index);
+        if (pooled != null && pooled.equals (text))
+        {
+            this.hits.increment ();
+            if (pooled != text)
+                this.savedBytes.add (STRING_OVERHEAD + (long) text.length ());
+            return pooled;
+        }
+
+        this.misses.increment ();
+        this.slots.set (index, text);
+        return text;
+    }
+
+
+    /**
+     * Replaces all texts in the given array with their pooled instances, e.g. the result of
+     * {@link StringUtils#split(String, String)}.
+     *
+     * @param texts The texts
+     * @return The given array
+     */
+    public String [] getAll (final String [] texts)
+    {
+        for (int i = 0; i < texts.length; i++)
+            texts[i] = this.get (texts[i]);
+        return texts;
+    }
+
+
+    /**
+     * Get the maximum number of strings in the pool.
+     *
+     * @return The capacity
+     */
+    public int getCapacity ()
+    {
+        return this.slots.length ();
+    }
+
+
+    /**
+     * Get the number of lookups which found an equal string in the pool.
+     *
+     * @return The number of hits
+     */
+    public long getHits ()
+    {
+        return this.hits.sum ();
+    }
+
+
+    /**
+     * Get the number of lookups which did not find an equal string in the pool.
+     *
+     * @return The number of misses
+     */
+    public long getMisses ()
+    {
+        return this.misses.sum ();
+    }
+
+
+    /**
+     * Get the ratio of hits to all lookups.
+     *
+     * @return The hit rate in the range of [0..1]
+     */
+    public double getHitRate ()
+    {
+        final long h = this.hits.sum ();
+        final long total = h + this.misses.sum ();
+        return total == 0 ? 0 : h / (double) total;
+    }
+
+
+    /**
+     * Get the estimated number of bytes which were saved by returning a pooled instance instead of
+     * the given duplicate. Assumes compact (one byte per character) strings.
+     *
+     * @return The number of bytes
+     */
+    public long getSavedBytes ()
+    {
+        return this.savedBytes.sum ();
+    }
+
+
+    /**
+     * Reset the hit, miss and saved bytes statistics.
+     */
+    public void resetStatistics ()
+    {
+        this.hits.reset ();
+        this.misses.reset ();
+        this.savedBytes.reset ();
+    }
+
+
+    /**
+     * Removes all strings from the pool.
+     */
+    public void clear ()
+    {
+        for (int i = 0; i < this.slots.length (); i++)
+            this.slots.set (i, null);
+    }
+
+
+    /**
+     * Spread the higher bits of the hash code to the lower ones, since only the lower bits are
+     * used for the index.
+     *
+     * @param hashCode The hash code
+     * @return The spread hash
+     */
+    private static int spread (final int hashCode)
+    {
+        return hashCode ^ hashCode >>> 16;
+    }
+}
@@ -4,7 +4,16 @@
 
 package de.mossgrabers.tools;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.Locale;
+import java.util.Map;
 
 
 /**
@@ -24,6 +33,7 @@ public class StringUtils
         'i',
         'o'
     };
+    private static final String  SPACES          = " ".repeat (128);
 
 
     /**
@@ -63,6 +73,21 @@ public class StringUtils
     }
 
 
+    /**
+     * Splits a string like {@link #split(String, String)} and de-duplicates the parts with the
+     * given pool.
+     *
+     * @param text The text to split
+     * @param regex The regular expression for splitting
+     * @param pool The pool to use for de-duplication
+     * @return The split parts
+     */
+    public static String [] split (final String text, final String regex, final StringPool pool)
+    {
+        return pool.getAll (split (text, regex));
+    }
+
+
     /**
      * Get the longest common prefix of two strings.
      *
@@ -74,16 +99,65 @@ public class StringUtils
     {
         if (str1 == null || str2 == null)
             return "";
+        return str1.substring (0, getCommonPrefixLength (str1, str2, Math.min (str1.length (), str2.length ())));
+    }
+
 
-        final StringBuilder prefixBuffer = new StringBuilder ();
-        final int minLength = Math.min (str1.length (), str2.length ());
-        for (int i = 0; i < minLength; i++)
+    /**
+     * Get the longest common prefix of all given strings. Runs in O(total length) and only creates
+     * the resulting string.
+     *
+     * @param texts The strings
+     * @return The prefix, an empty string if the collection is empty or contains null
+     */
+    public static String getCommonPrefix (final Iterable<String> texts)
+    {
+        String first = null;
+        int length = 0;
+        for (final String text: texts)
         {
-            if (str1.charAt (i) != str2.charAt (i))
-                break;
-            prefixBuffer.append (str1.charAt (i));
+            if (text == null)
+                return "";
+            if (first == null)
+            {
+                first = text;
+                length = text.length ();
+                continue;
+            }
+            length = getCommonPrefixLength (first, text, Math.min (length, text.length ()));
+            if (length == 0)
+                return "";
         }
-        return prefixBuffer.toString ();
+        return first == null ? "" : first.substring (0, length);
+    }
+
+
+    /**
+     * Groups the given names by their shared stem. All names which are identical in the first
+     * minPrefixLength characters are put into the same group. The key of a group is the longest
+     * common prefix of all its members. Names shorter than minPrefixLength form a group with their
+     * identical names.
+     *
+     * @param names The names to group
+     * @param minPrefixLength The minimum number of characters which must be shared by the names of
+     *            a group
+     * @return The groups in the order in which their first member appeared
+     */
+    public static Map<String, List<String>> groupByPrefix (final Collection<String> names, final int minPrefixLength)
+    {
+        final PrefixTrie trie = new PrefixTrie (names.size () * 8);
+        for (final String name: names)
+            trie.add (name);
+        return trie.groupByPrefix (minPrefixLength);
+    }
+
+
+    private static int getCommonPrefixLength (final String str1, final String str2, final int maxLength)
+    {
+        int i = 0;
+        while (i < maxLength && str1.charAt (i) == str2.charAt (i))
+            i++;
+        return i;
     }
 
 
@@ -96,8 +170,9 @@ public class StringUtils
      */
     public static String padLeftSpaces (final String text, final int length)
     {
-        final String format = String.format ("%%%ds", Integer.valueOf (text.length () + length));
-        return String.format (format, text);
+        final StringBuilder sb = new StringBuilder (text.length () + Math.max (0, length));
+        appendSpaces (sb, length);
+        return sb.append (text).toString ();
     }
 
 
@@ -113,8 +188,158 @@ public class StringUtils
     {
         if (text.length () > length)
             return text.substring (0, length);
-        final String formatString = "%1$-" + length + "s";
-        return String.format (formatString, text);
+        final StringBuilder sb = new StringBuilder (length);
+        return appendRightPadded (sb, text, length).toString ();
+    }
+
+
+    /**
+     * Appends the given number of spaces. Uses a shared space buffer, therefore no temporary
+     * strings are created.
+     *
+     * @param sb Where to append the spaces
+     * @param count The number of spaces to append, nothing is appended if the number is zero or
+     *            negative
+     * @return The given string builder
+     */
+    public static StringBuilder appendSpaces (final StringBuilder sb, final int count)
+    {
+        int remaining = count;
+        while (remaining > 0)
+        {
+            final int chunk = Math.min (remaining, SPACES.length ());
+            sb.append (SPACES, 0, chunk);
+            remaining -= chunk;
+        }
+        return sb;
+    }
+
+
+    /**
+     * Appends the given number of spaces. Uses a shared space buffer, therefore no temporary
+     * strings are created.
+     *
+     * @param out Where to append the spaces
+     * @param count The number of spaces to append, nothing is appended if the number is zero or
+     *            negative
+     * @throws IOException Could not append to the output
+     */
+    public static void appendSpaces (final Appendable out, final int count) throws IOException
+    {
+        int remaining = count;
+        while (remaining > 0)
+        {
+            final int chunk = Math.min (remaining, SPACES.length ());
+            out.append (SPACES, 0, chunk);
+            remaining -= chunk;
+        }
+    }
+
+
+    /**
+     * Appends a text and pads it with spaces at the left up to the given width. If the text is
+     * longer than the width it is truncated.
+     *
+     * @param sb Where to append the text
+     * @param text The text to append
+     * @param width The width of the resulting column
+     * @return The given string builder
+     */
+    public static StringBuilder appendLeftPadded (final StringBuilder sb, final CharSequence text, final int width)
+    {
+        final int length = Math.min (text.length (), width);
+        appendSpaces (sb, width - length);
+        return sb.append (text, 0, length);
+    }
+
+
+    /**
+     * Appends a text and pads it with spaces at the left up to the given width. If the text is
+     * longer than the width it is truncated.
+     *
+     * @param out Where to append the text
+     * @param text The text to append
+     * @param width The width of the resulting column
+     * @throws IOException Could not append to the output
+     */
+    public static void appendLeftPadded (final Appendable out, final CharSequence text, final int width) throws IOException
+    {
+        final int length = Math.min (text.length (), width);
+        appendSpaces (out, width - length);
+        out.append (text, 0, length);
+    }
+
+
+    /**
+     * Appends a text and pads it with spaces at the right up to the given width. If the text is
+     * longer than the width it is truncated.
+     *
+     * @param sb Where to append the text
+     * @param text The text to append
+     * @param width The width of the resulting column
+     * @return The given string builder
+     */
+    public static StringBuilder appendRightPadded (final StringBuilder sb, final CharSequence text, final int width)
+    {
+        final int length = Math.min (text.length (), width);
+        sb.append (text, 0, length);
+        return appendSpaces (sb, width - length);
+    }
+
+
+    /**
+     * Appends a text and pads it with spaces at the right up to the given width. If the text is
+     * longer than the width it is truncated.
+     *
+     * @param out Where to append the text
+     * @param text The text to append
+     * @param width The width of the resulting column
+     * @throws IOException Could not append to the output
+     */
+    public static void appendRightPadded (final Appendable out, final CharSequence text, final int width) throws IOException
+    {
+        final int length = Math.min (text.length (), width);
+        out.append (text, 0, length);
+        appendSpaces (out, width - length);
+    }
+
+
+    /**
+     * Appends a text centered in a column of the given width. If the text is longer than the width
+     * it is truncated.
+     *
+     * @param sb Where to append the text
+     * @param text The text to append
+     * @param width The width of the resulting column
+     * @return The given string builder
+     */
+    public static StringBuilder appendCentered (final StringBuilder sb, final CharSequence text, final int width)
+    {
+        final int length = Math.min (text.length (), width);
+        final int left = (width - length) / 2;
+        appendSpaces (sb, left);
+        sb.append (text, 0, length);
+        return appendSpaces (sb, width - length - left);
+    }
+
+
+    /**
+     * Appends a text truncated to the given maximum length. If the text is truncated and the
+     * ellipsis fits into the maximum length, the end of the text is replaced by the ellipsis.
+     *
+     * @param sb Where to append the text
+     * @param text The text to append
+     * @param maxLength The maximum number of characters to append
+     * @param ellipsis The text to append if the text was truncated, e.g. "...", may be empty
+     * @return The given string builder
+     */
+    public static StringBuilder appendTruncated (final StringBuilder sb, final CharSequence text, final int maxLength, final String ellipsis)
+    {
+        if (text.length () <= maxLength)
+            return sb.append (text);
+        if (ellipsis.length () >= maxLength)
+            return sb.append (text, 0, Math.max (0, maxLength));
+        return sb.append (text, 0, maxLength - ellipsis.length ()).append (ellipsis);
     }
 
 
@@ -162,42 +387,10 @@ public class StringUtils
         {
             final char c = text.charAt (i);
             if (c > 127)
-                switch (c)
-                {
-                    case 'Ä':
-                        str.append ("Ae");
-                        break;
-                    case 'ä':
-                        str.append ("ae");
-                        break;
-                    case 'Ö', '\u0152':
-                        str.append ("Oe");
-                        break;
-                    case 'ö', '\u0153':
-                        str.append ("oe");
-                        break;
-                    case 'Ü':
-                        str.append ("Ue");
-                        break;
-                    case 'ü':
-                        str.append ("ue");
-                        break;
-                    case 'ß':
-                        str.append ("ss");
-                        break;
-                    case 'é':
-                        str.append ("e");
-                        break;
-                    case '→':
-                        str.append ("->");
-                        break;
-                    case '♯':
-                        str.append ("#");
-                        break;
-                    default:
-                        str.append ("?");
-                        break;
-                }
+            {
+                final String replacement = getASCIIReplacement (c);
+                str.append (replacement == null ? "?" : replacement);
+            }
             else
                 str.append (c);
         }
@@ -205,6 +398,274 @@ public class StringUtils
     }
 
 
+    /**
+     * Get the alternative ASCII writing of a non-ASCII character.
+     *
+     * @param c The character
+     * @return The replacement or null if there is no replacement for the character
+     */
+    private static String getASCIIReplacement (final char c)
+    {
+        switch (c)
+        {
+            case 'Ä':
+                return "Ae";
+            case 'ä':
+                return "ae";
+            case 'Ö', '\u0152':
+                return "Oe";
+            case 'ö', '\u0153':
+                return "oe";
+            case 'Ü':
+                return "Ue";
+            case 'ü':
+                return "ue";
+            case 'ß':
+                return "ss";
+            case 'é':
+                return "e";
+            case '→':
+                return "->";
+            case '♯':
+                return "#";
+            default:
+                return null;
+        }
+    }
+
+
+    /**
+     * Creates a key for sorting texts in natural order, e.g. 'Piano 2' before 'Piano 10'. The
+     * characters are folded like in {@link #fixASCII(String)} and converted to lower case. Each
+     * number is encoded by its length followed by its digits without leading zeros, therefore
+     * comparing two keys with {@link String#compareTo(String)} gives the natural order. The length
+     * is preceded by its own number of digits, which orders numbers of any length. The encoding
+     * contains only digits and all digits of the text are part of numbers, therefore it cannot be
+     * confused with other characters and numbers are ordered among them like single digits.
+     *
+     * @param text The text for which to create the key
+     * @return The sort key
+     */
+    public static String createNaturalSortKey (final String text)
+    {
+        final int length = text.length ();
+        final StringBuilder key = new StringBuilder (length + 4);
+        int i = 0;
+        while (i < length)
+        {
+            final char c = text.charAt (i);
+            if (isDigit (c))
+            {
+                final int start = i;
+                while (i < length && isDigit (text.charAt (i)))
+                    i++;
+                int numberStart = start;
+                while (numberStart < i - 1 && text.charAt (numberStart) == '0')
+                    numberStart++;
+                final String digits = Integer.toString (i - numberStart);
+                key.append ((char) ('0' + digits.length ())).append (digits).append (text, numberStart, i);
+                continue;
+            }
+
+            if (c > 127)
+            {
+                final String replacement = getASCIIReplacement (c);
+                if (replacement == null)
+                    key.append (Character.toLowerCase (c));
+                else
+                    for (int j = 0; j < replacement.length (); j++)
+                        key.append (Character.toLowerCase (replacement.charAt (j)));
+            }
+            else
+                key.append (c >= 'A' && c <= 'Z' ? (char) (c + 32) : c);
+            i++;
+        }
+        return key.toString ();
+    }
+
+
+    /**
+     * Sorts the given list in natural order, e.g. 'Piano 2' before 'Piano 10'. The sort key of each
+     * element is created only once. Texts with the same key are ordered like by
+     * {@link NaturalOrderComparator}.
+     *
+     * @param texts The texts to sort
+     * @see #createNaturalSortKey(String)
+     */
+    public static void sortNatural (final List<String> texts)
+    {
+        final SortEntry [] entries = new SortEntry [texts.size ()];
+        int index = 0;
+        for (final String text: texts)
+            entries[index++] = new SortEntry (createNaturalSortKey (text), text);
+        Arrays.sort (entries);
+
+        final ListIterator<String> iterator = texts.listIterator ();
+        for (final SortEntry entry: entries)
+        {
+            iterator.next ();
+            iterator.set (entry.text ());
+        }
+    }
+
+
+    /**
+     * Compares the natural sort keys of two texts without creating them. The result has the same
+     * sign as comparing the keys created by {@link #createNaturalSortKey(String)}.
+     *
+     * @param text1 The first text
+     * @param text2 The second text
+     * @return A negative value, zero or a positive value if the key of the first text is smaller,
+     *         equal or larger than the key of the second text
+     */
+    static int compareNaturalSortKeys (final String text1, final String text2)
+    {
+        final int length1 = text1.length ();
+        final int length2 = text2.length ();
+        int pos1 = 0;
+        int pos2 = 0;
+        // The index in the key part of the current character, e.g. 1 for the 'e' of 'ä' -> "ae"
+        int sub1 = 0;
+        int sub2 = 0;
+        while (pos1 < length1 && pos2 < length2)
+        {
+            if (sub1 == 0 && sub2 == 0 && isDigit (text1.charAt (pos1)) && isDigit (text2.charAt (pos2)))
+            {
+                // The key of a number starts with its length, therefore a shorter number is smaller
+                final int end1 = getNumberEnd (text1, pos1);
+                final int end2 = getNumberEnd (text2, pos2);
+                final int start1 = getSignificantStart (text1, pos1, end1);
+                final int start2 = getSignificantStart (text2, pos2, end2);
+                if (end1 - start1 != end2 - start2)
+                    return Integer.compare (end1 - start1, end2 - start2);
+                for (int i = 0; i < end1 - start1; i++)
+                {
+                    final int result = text1.charAt (start1 + i) - text2.charAt (start2 + i);
+                    if (result != 0)
+                        return result;
+                }
+                pos1 = end1;
+                pos2 = end2;
+                continue;
+            }
+
+            final int result = getKeyChar (text1, pos1, sub1) - getKeyChar (text2, pos2, sub2);
+            if (result != 0)
+                return result;
+            sub1++;
+            if (sub1 == getKeyLength (text1, pos1))
+            {
+                pos1 = isDigit (text1.charAt (pos1)) ? getNumberEnd (text1, pos1) : pos1 + 1;
+                sub1 = 0;
+            }
+            sub2++;
+            if (sub2 == getKeyLength (text2, pos2))
+            {
+                pos2 = isDigit (text2.charAt (pos2)) ? getNumberEnd (text2, pos2) : pos2 + 1;
+                sub2 = 0;
+            }
+        }
+        return Boolean.compare (pos1 < length1, pos2 < length2);
+    }
+
+
+    /**
+     * Get the length of the part of the natural sort key which is created for the character or
+     * number at the given position.
+     *
+     * @param text The text
+     * @param pos The position of the character or of the first digit of the number
+     * @return The number of characters in the key
+     */
+    private static int getKeyLength (final String text, final int pos)
+    {
+        final char c = text.charAt (pos);
+        if (isDigit (c))
+        {
+            final int end = getNumberEnd (text, pos);
+            final int digits = end - getSignificantStart (text, pos, end);
+            return 1 + getNumberOfDigits (digits) + digits;
+        }
+        if (c > 127)
+        {
+            final String replacement = getASCIIReplacement (c);
+            return replacement == null ? 1 : replacement.length ();
+        }
+        return 1;
+    }
+
+
+    /**
+     * Get a character of the part of the natural sort key which is created for the character or
+     * number at the given position.
+     *
+     * @param text The text
+     * @param pos The position of the character or of the first digit of the number
+     * @param sub The index of the character in the part of the key
+     * @return The character of the key
+     */
+    private static char getKeyChar (final String text, final int pos, final int sub)
+    {
+        final char c = text.charAt (pos);
+        if (isDigit (c))
+        {
+            final int end = getNumberEnd (text, pos);
+            final int start = getSignificantStart (text, pos, end);
+            final int digits = end - start;
+            final int lengthDigits = getNumberOfDigits (digits);
+            if (sub == 0)
+                return (char) ('0' + lengthDigits);
+            if (sub <= lengthDigits)
+            {
+                int value = digits;
+                for (int i = sub; i < lengthDigits; i++)
+                    value /= 10;
+                return (char) ('0' + value % 10);
+            }
+            return text.charAt (start + sub - 1 - lengthDigits);
+        }
+        if (c > 127)
+        {
+            final String replacement = getASCIIReplacement (c);
+            return Character.toLowerCase (replacement == null ? c : replacement.charAt (sub));
+        }
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+
+
+    private static int getNumberEnd (final String text, final int start)
+    {
+        int end = start;
+        while (end < text.length () && isDigit (text.charAt (end)))
+            end++;
+        return end;
+    }
+
+
+    private static int getSignificantStart (final String text, final int start, final int end)
+    {
+        int numberStart = start;
+        while (numberStart < end - 1 && text.charAt (numberStart) == '0')
+            numberStart++;
+        return numberStart;
+    }
+
+
+    private static int getNumberOfDigits (final int value)
+    {
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10)
+            digits++;
+        return digits;
+    }
+
+
+    private static boolean isDigit (final char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+
     /**
      * Removes characters after the first null byte.
      *
@@ -213,8 +674,113 @@ public class StringUtils
      */
     public static String removeCharactersAfterZero (final String text)
     {
-        final String [] split = text.split ("\0");
-        return split.length == 0 ? "" : split[0];
+        final int pos = text.indexOf ('\0');
+        return pos == -1 ? text : text.substring (0, pos);
+    }
+
+
+    /**
+     * Decodes a zero terminated text from a fixed length field. Only the bytes before the
+     * terminator are decoded. If there is no terminator the whole field is decoded.
+     *
+     * @param data The data which contains the text field
+     * @param offset The offset of the field in the data
+     * @param length The length of the field in bytes
+     * @param charset The character set of the text
+     * @return The decoded text
+     */
+    public static String decodeZeroTerminated (final byte [] data, final int offset, final int length, final Charset charset)
+    {
+        final int liveLength = getZeroTerminatedLength (data, offset, length, getTerminatorWidth (charset));
+        if (liveLength == 0)
+            return "";
+        // The String constructor has fast paths for ASCII, ISO-8859-1 and UTF-8 which copy the
+        // bytes directly into the compact string without an intermediate character buffer
+        return new String (data, offset, liveLength, charset);
+    }
+
+
+    /**
+     * Decodes a zero terminated text from a fixed length field. Only the bytes before the
+     * terminator are decoded. If there is no terminator the whole field is decoded. The position of
+     * the buffer is not changed.
+     *
+     * @param buffer The buffer which contains the text field
+     * @param offset The absolute offset of the field in the buffer
+     * @param length The length of the field in bytes
+     * @param charset The character set of the text
+     * @return The decoded text
+     */
+    public static String decodeZeroTerminated (final ByteBuffer buffer, final int offset, final int length, final Charset charset)
+    {
+        if (buffer.hasArray ())
+            return decodeZeroTerminated (buffer.array (), buffer.arrayOffset () + offset, length, charset);
+
+        final int width = getTerminatorWidth (charset);
+        int liveLength = 0;
+        while (liveLength + width <= length && !isTerminator (buffer, offset + liveLength, width))
+            liveLength += width;
+        if (liveLength + width > length)
+            liveLength = length;
+        if (liveLength == 0)
+            return "";
+
+        // Copy only the live bytes out of the (direct) buffer
+        final byte [] live = new byte [liveLength];
+        buffer.get (offset, live);
+        return new String (live, charset);
+    }
+
+
+    /**
+     * Decodes a zero terminated ASCII text from a fixed length field.
+     *
+     * @param data The data which contains the text field
+     * @param offset The offset of the field in the data
+     * @param length The length of the field in bytes
+     * @return The decoded text
+     */
+    public static String decodeZeroTerminatedASCII (final byte [] data, final int offset, final int length)
+    {
+        return decodeZeroTerminated (data, offset, length, StandardCharsets.US_ASCII);
+    }
+
+
+    private static int getZeroTerminatedLength (final byte [] data, final int offset, final int length, final int width)
+    {
+        if (width == 1)
+        {
+            for (int i = 0; i < length; i++)
+                if (data[offset + i] == 0)
+                    return i;
+            return length;
+        }
+
+        for (int i = 0; i + 1 < length; i += 2)
+            if (data[offset + i] == 0 && data[offset + i + 1] == 0)
+                return i;
+        return length;
+    }
+
+
+    private static boolean isTerminator (final ByteBuffer buffer, final int position, final int width)
+    {
+        if (buffer.get (position) != 0)
+            return false;
+        return width == 1 || buffer.get (position + 1) == 0;
+    }
+
+
+    /**
+     * Get the number of bytes of the zero terminator. UTF-16 texts are terminated by a zero
+     * character which consists of 2 bytes.
+     *
+     * @param charset The character set
+     * @return 1 or 2
+     */
+    private static int getTerminatorWidth (final Charset charset)
+    {
+        return charset.name ().startsWith ("UTF-16") ? 2 : 1;
     }
 
 
@@ -321,4 +887,17 @@ public class StringUtils
     {
         return String.format (Locale.US, "%." + fractions + "f", Double.valueOf (value)) + postfix;
     }
+
+
+    /** A text together with its pre-computed sort key. */
+    private record SortEntry (String key, String text) implements Comparable<SortEntry>
+    {
+        @Override
+        public int compareTo (final SortEntry other)
+        {
+            final int result = this.key.compareTo (other.key);
+            // Texts which only differ in case or leading zeros still need a stable order
+            return result == 0 ? this.text.compareTo (other.text) : result;
+        }
+    }
 }
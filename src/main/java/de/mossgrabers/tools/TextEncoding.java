@@ -0,0 +1,123 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * The character set of a text file and the length of its byte order mark (BOM). The character set
+ * is detected from the raw bytes: first by the BOM, then by the distribution of zero bytes
+ * (UTF-16 without BOM) and finally by checking if the bytes are valid UTF-8. Everything else is
+ * considered to be ISO-8859-1 (Latin-1).
+ *
+ * @param charset The detected character set
+ * @param bomLength The number of bytes of the byte order mark, 0 if there is none
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public record TextEncoding (Charset charset, int bomLength)
+{
+    /** The number of bytes to look at for detecting the character set. */
+    public static final int SNIFF_LENGTH = 8192;
+
+
+    /**
+     * Detect the character set from the start of a text.
+     *
+     * @param data The data to check
+     * @param length The number of valid bytes in the data
+     * @return The detected encoding
+     */
+    public static TextEncoding detect (final byte [] data, final int length)
+    {
+        return detect (ByteBuffer.wrap (data, 0, Math.min (length, data.length)));
+    }
+
+
+    /**
+     * Detect the character set from the start of a text. Looks at the bytes from the current
+     * position of the buffer up to SNIFF_LENGTH bytes. The position of the buffer is not changed.
+     *
+     * @param data The data to check
+     * @return The detected encoding
+     */
+    public static TextEncoding detect (final ByteBuffer data)
+    {
+        final int start = data.position ();
+        final int length = Math.min (data.remaining (), SNIFF_LENGTH);
+
+        if (length >= 3 && data.get (start) == (byte) 0xEF && data.get (start + 1) == (byte) 0xBB && data.get (start + 2) == (byte) 0xBF)
+            return new TextEncoding (StandardCharsets.UTF_8, 3);
+        if (length >= 2)
+        {
+            if (data.get (start) == (byte) 0xFE && data.get (start + 1) == (byte) 0xFF)
+                return new TextEncoding (StandardCharsets.UTF_16BE, 2);
+            if (data.get (start) == (byte) 0xFF && data.get (start + 1) == (byte) 0xFE)
+                return new TextEncoding (StandardCharsets.UTF_16LE, 2);
+        }
+
+        // Latin text in UTF-16 has a zero byte in every second position
+        int evenZeros = 0;
+        int oddZeros = 0;
+        for (int i = 0; i < length; i++)
+            if (data.get (start + i) == 0)
+            {
+                if (i % 2 == 0)
+                    evenZeros++;
+                else
+                    oddZeros++;
+            }
+        final int pairs = length / 2;
+        if (pairs > 0)
+        {
+            if (oddZeros > pairs / 4 && evenZeros < oddZeros / 8)
+                return new TextEncoding (StandardCharsets.UTF_16LE, 0);
+            if (evenZeros > pairs / 4 && oddZeros < evenZeros / 8)
+                return new TextEncoding (StandardCharsets.UTF_16BE, 0);
+        }
+
+        return new TextEncoding (isValidUTF8 (data, start, length) ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1, 0);
+    }
+
+
+    /**
+     * Checks if the bytes form a valid UTF-8 sequence. A sequence which is cut off at the end is
+     * accepted since only the start of a text might be checked.
+     *
+     * @param data The data
+     * @param start The index of the first byte
+     * @param length The number of bytes to check
+     * @return True if valid
+     */
+    private static boolean isValidUTF8 (final ByteBuffer data, final int start, final int length)
+    {
+        final int end = start + length;
+        int i = start;
+        while (i < end)
+        {
+            final int b = data.get (i) & 0xFF;
+            final int followers;
+            if (b < 0x80)
+                followers = 0;
+            else if (b >= 0xC2 && b <= 0xDF)
+                followers = 1;
+            else if (b >= 0xE0 && b <= 0xEF)
+                followers = 2;
+            else if (b >= 0xF0 && b <= 0xF4)
+                followers = 3;
+            else
+                return false;
+
+            i++;
+            for (int j = 0; j < followers && i < end; j++, i++)
+                if ((data.get (i) & 0xC0) != 0x80)
+                    return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,170 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.IOException;
+
+
+/**
+ * Writes text tables with fixed column widths. Each row is formatted into a re-used line buffer
+ * which is then handed to the output in one call. Cells are padded and truncated with the helpers
+ * of StringUtils, therefore writing a row does not create any temporary strings.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class TextTableWriter
+{
+    /** The alignment of the text in a column. */
+    public enum Alignment
+    {
+        /** Align to the left. */
+        LEFT,
+        /** Align to the right. */
+        RIGHT,
+        /** Center the text. */
+        CENTER
+    }
+
+
+    private final Appendable    out;
+    private final int []        widths;
+    private final Alignment []  alignments;
+    private final String        columnSeparator;
+    private final String        lineSeparator;
+    private final StringBuilder line;
+
+
+    /**
+     * Constructor. All columns are left aligned, separated by a space and lines end with a
+     * line-feed.
+     *
+     * @param out Where to write the table to
+     * @param widths The widths of the columns
+     */
+    public TextTableWriter (final Appendable out, final int... widths)
+    {
+        this (out, " ", "\n", widths);
+    }
+
+
+    /**
+     * Constructor. All columns are left aligned.
+     *
+     * @param out Where to write the table to
+     * @param columnSeparator The text to insert between two columns
+     * @param lineSeparator The text to append at the end of each row
+     * @param widths The widths of the columns
+     */
+    public TextTableWriter (final Appendable out, final String columnSeparator, final String lineSeparator, final int... widths)
+    {
+        if (widths.length == 0)
+            throw new IllegalArgumentException ("At least one column is required.");
+
+        this.out = out;
+        this.widths = widths.clone ();
+        this.alignments = new Alignment [widths.length];
+        this.columnSeparator = columnSeparator;
+        this.lineSeparator = lineSeparator;
+
+        int lineLength = lineSeparator.length ();
+        for (int i = 0; i < widths.length; i++)
+        {
+            if (widths[i] < 0)
+                throw new IllegalArgumentException ("Column widths must not be negative.");
+            this.alignments[i] = Alignment.LEFT;
+            lineLength += widths[i] + columnSeparator.length ();
+        }
+        this.line = new StringBuilder (lineLength);
+    }
+
+
+    /**
+     * Set the alignment of a column.
+     *
+     * @param column The index of the column
+     * @param alignment The alignment
+     * @return This writer for chaining
+     */
+    public TextTableWriter setAlignment (final int column, final Alignment alignment)
+    {
+        this.alignments[column] = alignment;
+        return this;
+    }
+
+
+    /**
+     * Get the number of columns.
+     *
+     * @return The number of columns
+     */
+    public int getColumnCount ()
+    {
+        return this.widths.length;
+    }
+
+
+    /**
+     * Write one row. Missing cells are written as empty cells, additional cells are ignored. Null
+     * cells are written as empty cells as well.
+     *
+     * @param cells The content of the cells
+     * @throws IOException Could not write to the output
+     */
+    public void writeRow (final CharSequence... cells) throws IOException
+    {
+        this.line.setLength (0);
+        for (int i = 0; i < this.widths.length; i++)
+        {
+            if (i > 0)
+                this.line.append (this.columnSeparator);
+            final CharSequence cell = i < cells.length && cells[i] != null ? cells[i] : "";
+            final int width = this.widths[i];
+            switch (this.alignments[i])
+            {
+                case RIGHT:
+                    StringUtils.appendLeftPadded (this.line, cell, width);
+                    break;
+                case CENTER:
+                    StringUtils.appendCentered (this.line, cell, width);
+                    break;
+                default:
+                    // The last column does not need to be padded if it is left aligned
+                    if (i == this.widths.length - 1)
+                        this.line.append (cell, 0, Math.min (cell.length (), width));
+                    else
+                        StringUtils.appendRightPadded (this.line, cell, width);
+                    break;
+            }
+        }
+        this.flushLine ();
+    }
+
+
+    /**
+     * Write a separator row which fills all columns with the given character.
+     *
+     * @param fill The character to fill the columns with, e.g. '-'
+     * @throws IOException Could not write to the output
+     */
+    public void writeSeparator (final char fill) throws IOException
+    {
+        this.line.setLength (0);
+        for (int i = 0; i < this.widths.length; i++)
+        {
+            if (i > 0)
+                this.line.append (this.columnSeparator);
+            for (int j = 0; j < this.widths[i]; j++)
+                this.line.append (fill);
+        }
+        this.flushLine ();
+    }
+
+
+    private void flushLine () throws IOException
+    {
+        this.line.append (this.lineSeparator);
+        this.out.append (this.line);
+    }
+}
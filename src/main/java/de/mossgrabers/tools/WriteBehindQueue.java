@@ -0,0 +1,343 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+
+/**
+ * Saves files in a background thread so that the caller does not need to wait for the disk. Each
+ * file is written with {@link FileUtils#writeAtomically(Path, byte[])}. If a file is submitted
+ * again before its previous content was written, only the newest content is written. Files which
+ * are submitted before the queue is closed are always written.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class WriteBehindQueue implements AutoCloseable
+{
+    private static final Path                       STOP           = Path.of ("");
+
+    private final ConcurrentMap<Path, PendingWrite> pending        = new ConcurrentHashMap<> ();
+    private final BlockingQueue<Path>               order          = new LinkedBlockingQueue<> ();
+    private final BiConsumer<Path, IOException>     errorHandler;
+    private final Thread                            writerThread;
+    private final Object                            idleLock       = new Object ();
+    /** Submitting takes the read lock, closing the write lock. */
+    private final ReadWriteLock                     closeLock      = new ReentrantReadWriteLock ();
+    private volatile boolean                        isWriting      = false;
+    private volatile boolean                        isClosed       = false;
+
+    private final LongAdder                         submittedCount = new LongAdder ();
+    private final LongAdder                         coalescedCount = new LongAdder ();
+    private final LongAdder                         writtenCount   = new LongAdder ();
+    private final LongAdder                         failedCount    = new LongAdder ();
+    private final LongAdder                         writtenBytes   = new LongAdder ();
+    private final LongAdder                         totalLatency   = new LongAdder ();
+    private final AtomicLong                        maxLatency     = new AtomicLong ();
+
+
+    /**
+     * Constructor. Starts the background thread.
+     *
+     * @param errorHandler Is called from the background thread if a file could not be written. An
+     *            exception thrown by the handler is passed to the uncaught exception handler of
+     *            the thread, which keeps running
+     */
+    public WriteBehindQueue (final BiConsumer<Path, IOException> errorHandler)
+    {
+        this.errorHandler = errorHandler;
+        this.writerThread = new Thread (this::processQueue, "WriteBehindQueue");
+        this.writerThread.setDaemon (true);
+        this.writerThread.start ();
+    }
+
+
+    /**
+     * Queue a text to be written to a file.
+     *
+     * @param file The file to write
+     * @param text The text to write
+     * @param charset The character set to encode the text with
+     */
+    public void submit (final Path file, final String text, final Charset charset)
+    {
+        this.submit (file, text.getBytes (charset));
+    }
+
+
+    /**
+     * Queue data to be written to a file. If the same file is still waiting to be written, its
+     * content is replaced.
+     *
+     * @param file The file to write
+     * @param data The data to write, must not be modified afterwards
+     * @throws IllegalStateException The queue is closed or closing
+     */
+    public void submit (final Path file, final byte [] data)
+    {
+        final Path key = file.toAbsolutePath ().normalize ();
+        final long now = System.nanoTime ();
+        final boolean [] isNew = new boolean [1];
+
+        // Closing waits for running submissions, therefore none is queued after the stop marker
+        this.closeLock.readLock ().lock ();
+        try
+        {
+            if (this.isClosed)
+                throw new IllegalStateException ("The queue is closed.");
+
+            this.submittedCount.increment ();
+            this.pending.compute (key, (_, previous) -> {
+                if (previous == null)
+                {
+                    isNew[0] = true;
+                    return new PendingWrite (data, now);
+                }
+                // Keep the time of the first submission to measure the full latency
+                return new PendingWrite (data, previous.submitTime ());
+            });
+
+            if (isNew[0])
+                this.order.add (key);
+            else
+                this.coalescedCount.increment ();
+        }
+        finally
+        {
+            this.closeLock.readLock ().unlock ();
+        }
+    }
+
+
+    /**
+     * Blocks until all queued files are written or the background thread has ended.
+     *
+     * @throws InterruptedException Interrupted while waiting
+     */
+    public void flush () throws InterruptedException
+    {
+        synchronized (this.idleLock)
+        {
+            while ((!this.pending.isEmpty () || this.isWriting) && this.writerThread.isAlive ())
+                this.idleLock.wait ();
+        }
+    }
+
+
+    /**
+     * Writes all queued files and stops the background thread. If the calling thread is
+     * interrupted while waiting, the remaining files are still written by the background thread.
+     */
+    @Override
+    public void close ()
+    {
+        this.closeLock.writeLock ().lock ();
+        try
+        {
+            if (this.isClosed)
+                return;
+            this.isClosed = true;
+            this.order.add (STOP);
+        }
+        finally
+        {
+            this.closeLock.writeLock ().unlock ();
+        }
+
+        try
+        {
+            this.writerThread.join ();
+        }
+        catch (final InterruptedException _)
+        {
+            Thread.currentThread ().interrupt ();
+        }
+    }
+
+
+    /**
+     * Get the number of submitted writes.
+     *
+     * @return The number of writes
+     */
+    public long getSubmittedCount ()
+    {
+        return this.submittedCount.sum ();
+    }
+
+
+    /**
+     * Get the number of submitted writes which replaced a not yet written content of the same file.
+     *
+     * @return The number of coalesced writes
+     */
+    public long getCoalescedCount ()
+    {
+        return this.coalescedCount.sum ();
+    }
+
+
+    /**
+     * Get the number of files which were written.
+     *
+     * @return The number of files
+     */
+    public long getWrittenCount ()
+    {
+        return this.writtenCount.sum ();
+    }
+
+
+    /**
+     * Get the number of files which could not be written.
+     *
+     * @return The number of files
+     */
+    public long getFailedCount ()
+    {
+        return this.failedCount.sum ();
+    }
+
+
+    /**
+     * Get the number of bytes which were written.
+     *
+     * @return The number of bytes
+     */
+    public long getWrittenBytes ()
+    {
+        return this.writtenBytes.sum ();
+    }
+
+
+    /**
+     * Get the average time from the submission of a file until it was written to disk.
+     *
+     * @return The average latency in milliseconds
+     */
+    public double getAverageLatencyMillis ()
+    {
+        final long count = this.writtenCount.sum () + this.failedCount.sum ();
+        return count == 0 ? 0 : this.totalLatency.sum () / (double) count / TimeUnit.MILLISECONDS.toNanos (1);
+    }
+
+
+    /**
+     * Get the longest time from the submission of a file until it was written to disk.
+     *
+     * @return The maximum latency in milliseconds
+     */
+    public double getMaxLatencyMillis ()
+    {
+        return this.maxLatency.get () / (double) TimeUnit.MILLISECONDS.toNanos (1);
+    }
+
+
+    private void processQueue ()
+    {
+        try
+        {
+            while (true)
+            {
+                final Path file;
+                try
+                {
+                    file = this.order.take ();
+                }
+                catch (final InterruptedException _)
+                {
+                    Thread.currentThread ().interrupt ();
+                    return;
+                }
+                if (file == STOP)
+                    return;
+
+                this.isWriting = true;
+                final PendingWrite write = this.pending.remove (file);
+                if (write != null)
+                    this.write (file, write);
+                this.isWriting = false;
+
+                synchronized (this.idleLock)
+                {
+                    this.idleLock.notifyAll ();
+                }
+            }
+        }
+        finally
+        {
+            // Wake up threads which wait in flush, the queue is not processed anymore
+            synchronized (this.idleLock)
+            {
+                this.idleLock.notifyAll ();
+            }
+        }
+    }
+
+
+    private void write (final Path file, final PendingWrite write)
+    {
+        try
+        {
+            FileUtils.writeAtomically (file, write.data ());
+            this.writtenCount.increment ();
+            this.writtenBytes.add (write.data ().length);
+        }
+        catch (final IOException ex)
+        {
+            this.failedCount.increment ();
+            this.handleError (file, ex);
+        }
+        catch (final RuntimeException ex)
+        {
+            this.failedCount.increment ();
+            this.handleError (file, new IOException (ex));
+        }
+
+        final long latency = System.nanoTime () - write.submitTime ();
+        this.totalLatency.add (latency);
+        this.maxLatency.accumulateAndGet (latency, Math::max);
+    }
+
+
+    /**
+     * Hands the error to the error handler. The writer thread must survive a failing handler,
+     * otherwise the remaining files would never be written and flush would block forever.
+     *
+     * @param file The file which could not be written
+     * @param ex The error
+     */
+    private void handleError (final Path file, final IOException ex)
+    {
+        try
+        {
+            this.errorHandler.accept (file, ex);
+        }
+        catch (final RuntimeException handlerException)
+        {
+            final Thread thread = Thread.currentThread ();
+            thread.getUncaughtExceptionHandler ().uncaughtException (thread, handlerException);
+        }
+    }
+
+
+    /** The latest content of a file and when it was first submitted. */
+    private record PendingWrite (byte [] data, long submitTime)
+    {
+        // Intentionally empty
+    }
+}
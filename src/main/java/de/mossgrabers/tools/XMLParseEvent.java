@@ -0,0 +1,31 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Flight recorder event for parsing an XML document.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+@Name("de.mossgrabers.XMLParse")
+@Label("XML Parse")
+@Category({"UiTools", "XML"})
+@Description("Parsing of an XML document")
+class XMLParseEvent extends Event
+{
+    @Label("System ID")
+    @Description("The system ID of the parsed input source, if available")
+    String  systemId;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
@@ -0,0 +1,28 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Flight recorder event for formatting an XML document into a text.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+@Name("de.mossgrabers.XMLSerialize")
+@Label("XML Serialize")
+@Category({"UiTools", "XML"})
+@Description("Formatting of an XML document into a text")
+class XMLSerializeEvent extends Event
+{
+    @Label("Characters")
+    @Description("The length of the created text")
+    int characters;
+}
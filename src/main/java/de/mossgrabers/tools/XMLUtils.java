@@ -99,14 +99,31 @@ public class XMLUtils
     {
         if (parseConfException != null)
             throw new SAXException (parseConfException);
+        final MetricsRegistry metrics = MetricsRegistry.getDefault ();
+        final long startTime = metrics.startTimer ();
+        final XMLParseEvent event = new XMLParseEvent ();
+        event.begin ();
         try
         {
-            return documentBuilder.parse (inputSource);
+            final Document document = documentBuilder.parse (inputSource);
+            metrics.count ("xml.parse.documents");
+            event.succeeded = true;
+            return document;
         }
         catch (final IOException exception)
         {
             throw new SAXException (exception);
         }
+        finally
+        {
+            metrics.stopTimer ("xml.parse", startTime);
+            event.end ();
+            if (event.shouldCommit ())
+            {
+                event.systemId = inputSource.getSystemId ();
+                event.commit ();
+            }
+        }
     }
 
 
@@ -224,6 +241,20 @@ public class XMLUtils
     }
 
 
+    /**
+     * Reads a string value from a XML attribute and de-duplicates it with the given pool.
+     *
+     * @param parent The XML node to which the attribute belongs
+     * @param name The name of the XML attribute
+     * @param pool The pool to use for de-duplication
+     * @return The attributes value or null if not found
+     */
+    public static String read (final Element parent, final String name, final StringPool pool)
+    {
+        return pool.get (read (parent, name));
+    }
+
+
     /**
      * Reads the text content of a node. If the node has no children null is returned. If it
      * contains several CDATA sections the content of all sections are concatenated and returned. If
@@ -470,6 +501,9 @@ public class XMLUtils
      */
     public static String toString (final Document document) throws TransformerException
     {
+        final long startTime = MetricsRegistry.getDefault ().startTimer ();
+        final XMLSerializeEvent event = new XMLSerializeEvent ();
+        event.begin ();
         final TransformerFactory factory = TransformerFactory.newInstance ();
         factory.setAttribute (XMLConstants.ACCESS_EXTERNAL_DTD, "");
         factory.setAttribute (XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
@@ -477,7 +511,7 @@ public class XMLUtils
         transformer.setOutputProperties (TRANSFORM_PROPERTIES);
         final Writer writer = new StringWriter ();
         transformer.transform (new DOMSource (document), new StreamResult (writer));
-        return writer.toString ();
+        return countSerialized (writer.toString (), startTime, event);
     }
 
 
@@ -492,6 +526,9 @@ public class XMLUtils
      */
     public static String toString (final Document document, final String newLine) throws TransformerException
     {
+        final long startTime = MetricsRegistry.getDefault ().startTimer ();
+        final XMLSerializeEvent event = new XMLSerializeEvent ();
+        event.begin ();
         final DOMImplementationLS dom;
         try
         {
@@ -517,7 +554,7 @@ public class XMLUtils
         serializer.write (document, destination);
 
         // Stupidly, no newline is added after XML header, so we need to add it ourselves
-        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + newLine + writer.toString ();
+        return countSerialized ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + newLine + writer.toString (), startTime, event);
     }
 
 
@@ -535,6 +572,9 @@ public class XMLUtils
      */
     public static String toString (final Document document, final String newLine, final int indent, final String encoding, final String version) throws TransformerException
     {
+        final long startTime = MetricsRegistry.getDefault ().startTimer ();
+        final XMLSerializeEvent event = new XMLSerializeEvent ();
+        event.begin ();
         final XMLOutputFactory factory = XMLOutputFactory.newInstance ();
 
         try
@@ -546,7 +586,7 @@ public class XMLUtils
             writeNode (document.getDocumentElement (), writer, newLine, indent, 0);
             writer.flush ();
             writer.close ();
-            return stringWriter.toString ();
+            return countSerialized (stringWriter.toString (), startTime, event);
         }
         catch (final Exception ex)
         {
@@ -555,6 +595,31 @@ public class XMLUtils
     }
 
 
+    /**
+     * Reports a serialized document to the default metrics registry and the flight recorder.
+     *
+     * @param text The serialized document
+     * @param startTime The start time of the serialization from the metrics registry
+     * @param event The flight recorder event which was started with the serialization
+     * @return The text
+     */
+    private static String countSerialized (final String text, final long startTime, final XMLSerializeEvent event)
+    {
+        final MetricsRegistry metrics = MetricsRegistry.getDefault ();
+        metrics.stopTimer ("xml.serialize", startTime);
+        metrics.count ("xml.serialize.documents");
+        metrics.count ("xml.serialize.chars", text.length ());
+
+        event.end ();
+        if (event.shouldCommit ())
+        {
+            event.characters = text.length ();
+            event.commit ();
+        }
+        return text;
+    }
+
+
     private static void writeNode (final Node node, final XMLStreamWriter writer, final String newLine, final int indent, final int level) throws Exception
     {
         final String indentSpaces = " ".repeat (indent * level);
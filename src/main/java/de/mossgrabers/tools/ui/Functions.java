@@ -731,7 +731,18 @@ public final class Functions
         });
 
         alert.show ();
-        new Thread (task).start ();
+        new Thread ( () -> {
+            final ProgressTaskEvent event = new ProgressTaskEvent ();
+            event.begin ();
+            task.run ();
+            event.end ();
+            if (event.shouldCommit ())
+            {
+                event.title = title;
+                event.cancelled = task.isCancelled ();
+                event.commit ();
+            }
+        }).start ();
     }
 
 
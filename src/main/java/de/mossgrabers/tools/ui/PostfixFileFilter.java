@@ -4,6 +4,8 @@
 
 package de.mossgrabers.tools.ui;
 
+import de.mossgrabers.tools.FileExtensionFilter;
+
 import java.io.File;
 
 
@@ -26,8 +28,8 @@ import java.io.File;
  */
 public class PostfixFileFilter extends javax.swing.filechooser.FileFilter
 {
-    private final String [] postfixes;
-    private final String    description;
+    private final FileExtensionFilter filter;
+    private final String              description;
 
 
     /**
@@ -56,13 +58,12 @@ public class PostfixFileFilter extends javax.swing.filechooser.FileFilter
      * @param description The description of all extensions. If it starts with '@' the matching
      *            string is loaded from the properties file
      * @param showEndings If true the endings are included in the description
-     * @param endings The file extensions to accept
+     * @param endings The file extensions to accept. If none are given, only directories are
+     *            accepted
      */
     public PostfixFileFilter (final String description, final boolean showEndings, final String... endings)
     {
-        this.postfixes = new String [endings.length];
-        for (int i = 0; i < endings.length; i++)
-            this.postfixes[i] = "(?i).*\\." + endings[i];
+        this.filter = endings.length == 0 ? null : new FileExtensionFilter (endings);
 
         final StringBuilder desc = new StringBuilder (Functions.getText (description));
         if (showEndings)
@@ -92,14 +93,7 @@ public class PostfixFileFilter extends javax.swing.filechooser.FileFilter
     @Override
     public boolean accept (final File f)
     {
-        if (f.isDirectory ())
-            return true;
-
-        final String name = f.getName ();
-        for (final String element: this.postfixes)
-            if (name.matches (element))
-                return true;
-        return false;
+        return f.isDirectory () || this.filter != null && this.filter.accept (f.getName ());
     }
 
 
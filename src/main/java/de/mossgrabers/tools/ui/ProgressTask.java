@@ -0,0 +1,34 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.ui;
+
+import de.mossgrabers.tools.ProgressListener;
+
+import javafx.concurrent.Task;
+
+
+/**
+ * A task which can be handed as a progress listener and cancellation check to long running file
+ * operations, e.g.
+ * <pre>
+ * FileUtils.copyFiles (files, this, this::isCancelled)
+ * </pre>
+ * The progress is forwarded to the progress property of the task, therefore a dialog created with
+ * {@link Functions#createProgressDialog(Task, javafx.stage.Window, String)} shows the progress of
+ * the operation.
+ *
+ * @param <T> The type of the result of the task
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public abstract class ProgressTask<T> extends Task<T> implements ProgressListener
+{
+    /** {@inheritDoc} */
+    @Override
+    public void progressChanged (final long done, final long total)
+    {
+        this.updateProgress (done, total);
+    }
+}
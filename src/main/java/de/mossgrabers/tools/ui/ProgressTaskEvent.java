@@ -0,0 +1,30 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.ui;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Flight recorder event for a task which was executed with a progress dialog.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+@Name("de.mossgrabers.ProgressTask")
+@Label("Progress Task")
+@Category({"UiTools", "Task"})
+@Description("Execution of a task with a progress dialog")
+class ProgressTaskEvent extends Event
+{
+    @Label("Title")
+    String  title;
+
+    @Label("Cancelled")
+    boolean cancelled;
+}
@@ -0,0 +1,28 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.ui.control.loggerbox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * Flight recorder event for handing over the records of the log to the LoggerBox.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+@Name("de.mossgrabers.LogDrain")
+@Label("Log Drain")
+@Category({"UiTools", "Log"})
+@Description("Handing over of the log records to the LoggerBox")
+class LogDrainEvent extends Event
+{
+    @Label("Records")
+    @Description("The number of drained log records")
+    int records;
+}
@@ -14,7 +14,8 @@ public class LogRecord
     private final LoggerBoxLevel level;
     private final String         message;
     private final boolean        combineWithPrevious;
-    private boolean              markForRemoval = false;
+    private volatile boolean     markForRemoval = false;
+    private long                 sequence       = -1;
 
 
     /**
@@ -83,4 +84,26 @@ public class LogRecord
     {
         return this.markForRemoval;
     }
+
+
+    /**
+     * Get the position of the record in the log.
+     *
+     * @return The sequence number, -1 if it was not added to a log
+     */
+    long getSequence ()
+    {
+        return this.sequence;
+    }
+
+
+    /**
+     * Set the position of the record in the log. Must be set before the record is published.
+     *
+     * @param sequence The sequence number
+     */
+    void setSequence (final long sequence)
+    {
+        this.sequence = sequence;
+    }
 }
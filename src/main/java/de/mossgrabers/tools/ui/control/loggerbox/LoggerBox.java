@@ -181,13 +181,14 @@ public class LoggerBox extends ListView<LogRecord>
 
     private void updateFromLog (final LoggerBoxLogger logger)
     {
-        // If the last item does not end with a return, remove it since it gets updated
-        if (!this.logItems.isEmpty () && this.logItems.getLast ().isMarkedForRemoval ())
-            this.logItems.removeLast ();
-
         final List<LogRecord> newItems = new ArrayList<> ();
         logger.getLog ().drainTo (newItems);
 
+        // If the last item does not end with a return, remove it since it gets updated. Check it
+        // after draining since a record is marked before the record which replaces it is added
+        if (!this.logItems.isEmpty () && this.logItems.getLast ().isMarkedForRemoval ())
+            this.logItems.removeLast ();
+
         final int size = newItems.size ();
         for (int i = 0; i < size; i++)
         {
@@ -4,33 +4,51 @@
 
 package de.mossgrabers.tools.ui.control.loggerbox;
 
+import de.mossgrabers.tools.MetricsRegistry;
+
 import java.util.Collection;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 
 /**
- * The actual log.
+ * The actual log. Records are added by any number of threads and handed over to the LoggerBox by a
+ * single consumer (the FX thread). The records are stored in a ring buffer with preallocated slots,
+ * therefore adding a record neither locks nor allocates a node. A producer claims a slot by
+ * replacing the last record with its own record, which carries the next sequence number, and then
+ * publishes the record into the slot of that number. Since the slot and the previous record are
+ * decided in the same step, a record is always combined with the record in the slot before it, even
+ * if several threads add records at the same time. The consumer drains all published slots in one
+ * batch.
  *
  * @author J&uuml;rgen Mo&szlig;graber
  */
 public class LoggerBoxLog
 {
-    private final int                      maximumLogEntries;
-    private final BlockingDeque<LogRecord> log;
-    private LogRecord                      previousRecord = null;
+    private final int                             maximumLogEntries;
+    private final AtomicReferenceArray<LogRecord> slots;
+    private final int                             mask;
+    /** The record which was added last, starts with an empty record before the first slot. */
+    private final AtomicReference<LogRecord>      lastRecord = new AtomicReference<> ();
+    private volatile long                         head;
 
 
     /**
      * Constructor.
      *
-     * @param maximumLogEntries The maximum number of entries to add to the log. Oldest entries will
-     *            be removed if that number is reached.
+     * @param maximumLogEntries The maximum number of entries in the log which were not yet handed
+     *            over. New entries are dropped if that number is reached.
      */
     public LoggerBoxLog (final int maximumLogEntries)
     {
-        this.maximumLogEntries = maximumLogEntries;
-        this.log = new LinkedBlockingDeque<> (maximumLogEntries);
+        this.maximumLogEntries = Math.max (1, maximumLogEntries);
+        final int capacity = this.maximumLogEntries == 1 ? 1 : Integer.highestOneBit (this.maximumLogEntries - 1) << 1;
+        this.slots = new AtomicReferenceArray<> (capacity);
+        this.mask = capacity - 1;
+
+        final LogRecord start = new LogRecord (LoggerBoxLevel.INFO, "", false);
+        start.markForRemoval ();
+        this.lastRecord.set (start);
     }
 
 
@@ -46,44 +64,83 @@ public class LoggerBoxLog
 
 
     /**
-     * Hands over all current log record to the given collection.
+     * Hands over all current log record to the given collection. Records which were combined with
+     * a later one are skipped. Must not be called by several threads at the same time.
      *
      * @param collection The collection to drain the log records to
      */
     public void drainTo (final Collection<? super LogRecord> collection)
     {
-        synchronized (this.log)
+        final LogDrainEvent event = new LogDrainEvent ();
+        event.begin ();
+
+        long position = this.head;
+        final long end = this.lastRecord.get ().getSequence () + 1;
+        int drained = 0;
+        while (position < end)
         {
-            this.log.drainTo (collection);
+            final int index = (int) (position & this.mask);
+            final LogRecord logRecord = this.slots.getAcquire (index);
+            // The slot was claimed but the record is not yet published, get it with the next drain
+            if (logRecord == null)
+                break;
+            // The producers see the cleared slot when they read the head
+            this.slots.setPlain (index, null);
+            position++;
+            if (!logRecord.isMarkedForRemoval ())
+            {
+                collection.add (logRecord);
+                drained++;
+            }
+        }
+        this.head = position;
+
+        MetricsRegistry.getDefault ().count ("loggerbox.drained", drained);
+        event.end ();
+        if (event.shouldCommit ())
+        {
+            event.records = drained;
+            event.commit ();
         }
     }
 
 
     /**
-     * Adds a record to the log.
+     * Adds a record to the log. If the record should be combined with the previous one, a new
+     * record with both messages is added and the previous one is marked for removal. The record is
+     * dropped if the log is full.
      *
      * @param logRecord The record
      */
     public void offer (final LogRecord logRecord)
     {
-        synchronized (this.log)
+        MetricsRegistry.getDefault ().count ("loggerbox.records");
+
+        // Replacing the last record claims the next slot, therefore the combined record is always
+        // the one in the slot before
+        LogRecord previous;
+        LogRecord rec;
+        long sequence;
+        do
         {
-            LogRecord rec = logRecord;
-            if (logRecord.isCombineWithPrevious () && this.previousRecord != null)
+            previous = this.lastRecord.get ();
+            sequence = previous.getSequence () + 1;
+            if (sequence - this.head >= this.maximumLogEntries)
             {
-                // Combine with the last log entry
-                final LogRecord combinedRecord = new LogRecord (logRecord.getLevel (), this.previousRecord.getMessage () + logRecord.getMessage (), false);
-                this.previousRecord.markForRemoval ();
-
-                // Is the previous record still in the log?
-                if (!this.log.isEmpty ())
-                    this.log.pollLast ();
-
-                rec = combinedRecord;
+                MetricsRegistry.getDefault ().count ("loggerbox.dropped");
+                return;
             }
+            if (logRecord.isCombineWithPrevious () && previous.getSequence () >= 0)
+                rec = new LogRecord (logRecord.getLevel (), previous.getMessage () + logRecord.getMessage (), false);
+            else
+                rec = logRecord;
+            rec.setSequence (sequence);
+        } while (!this.lastRecord.compareAndSet (previous, rec));
 
-            if (this.log.offer (rec))
-                this.previousRecord = rec;
-        }
+        // Mark it before the combined record is published, the drain or the LoggerBox skip it
+        if (rec != logRecord)
+            previous.markForRemoval ();
+
+        this.slots.setRelease ((int) (sequence & this.mask), rec);
     }
 }
@@ -0,0 +1,46 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.ui.control.loggerbox;
+
+import de.mossgrabers.tools.MetricsExporter;
+import de.mossgrabers.tools.MetricsRegistry;
+
+import java.util.List;
+
+
+/**
+ * Writes the metrics of a registry to a LoggerBox, one metric per line. Use it with a
+ * {@link MetricsExporter}.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+public class LoggerBoxMetricsSink implements MetricsExporter.Sink
+{
+    private final LoggerBoxLogger logger;
+    private final LoggerBoxLevel  level;
+
+
+    /**
+     * Constructor.
+     *
+     * @param logger The logger to write to
+     * @param level The level of the log records
+     */
+    public LoggerBoxMetricsSink (final LoggerBoxLogger logger, final LoggerBoxLevel level)
+    {
+        this.logger = logger;
+        this.level = level;
+    }
+
+
+    /** {@inheritDoc} */
+    @Override
+    public void export (final MetricsRegistry registry)
+    {
+        final List<String> lines = registry.toLines ();
+        if (!lines.isEmpty ())
+            this.logger.log (this.level, "Metrics:\n" + String.join ("\n", lines), false);
+    }
+}
@@ -7,10 +7,13 @@ module de.mossgrabers.uitools
 {
     requires java.desktop;
     requires java.logging;
+    requires java.management;
     requires transitive java.prefs;
     requires transitive java.xml;
     requires transitive javafx.controls;
     requires javafx.graphics;
+    requires jdk.jfr;
+    requires jdk.management;
 
 
     exports de.mossgrabers.tools;
@@ -0,0 +1,142 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.mossgrabers.tools.BinaryReader;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * Test for the binary reader.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestBinaryReader
+{
+    private static final byte [] DATA =
+    {
+        0x01,
+        0x02,
+        0x03,
+        0x04,
+        (byte) 0xFF,
+        (byte) 0xFE,
+        'd',
+        'a',
+        't',
+        'a',
+        'A',
+        'b',
+        0,
+        'x'
+    };
+
+
+    /**
+     * Test reading numbers in both byte orders.
+     *
+     * @throws EOFException Reached the end of the data
+     */
+    @Test
+    void testNumbers () throws EOFException
+    {
+        final BinaryReader reader = new BinaryReader (DATA, ByteOrder.LITTLE_ENDIAN);
+        assertEquals (14, reader.size ());
+        assertEquals (0x04030201, reader.readInt ());
+        assertEquals (0xFEFF, reader.readUnsignedShort ());
+
+        reader.seek (0);
+        assertEquals (0x01020304, reader.readInt (ByteOrder.BIG_ENDIAN));
+        assertEquals (ByteOrder.LITTLE_ENDIAN, reader.getOrder ());
+        assertEquals (-1, reader.readByte ());
+        assertEquals (0xFE, reader.readUnsignedByte ());
+
+        reader.setOrder (ByteOrder.BIG_ENDIAN);
+        reader.seek (0);
+        assertEquals (0x0102, reader.readShort ());
+        reader.seek (2);
+        assertEquals (0x0304FFFEL, reader.readUnsignedInt ());
+        assertEquals (8, reader.remaining ());
+    }
+
+
+    /**
+     * Test reading identifiers, texts and sub-views.
+     *
+     * @throws EOFException Reached the end of the data
+     */
+    @Test
+    void testTextsAndViews () throws EOFException
+    {
+        final BinaryReader reader = new BinaryReader (DATA, ByteOrder.LITTLE_ENDIAN);
+        reader.skip (6);
+        assertEquals ("data", reader.readFourCC ());
+        assertEquals ("Ab", reader.readFixedString (4));
+        assertFalse (reader.hasRemaining ());
+
+        final BinaryReader view = reader.view (6, 4);
+        assertEquals (4, view.size ());
+        assertEquals (0, view.getPosition ());
+        assertEquals ("da", view.readFixedString (2));
+        assertEquals (14, reader.getPosition ());
+
+        reader.seek (4);
+        final BinaryReader slice = reader.slice (2);
+        assertEquals (6, reader.getPosition ());
+        assertEquals (0xFEFF, slice.readUnsignedShort ());
+        assertEquals ("64 61", reader.toHexString (2).trim ().toLowerCase ());
+    }
+
+
+    /**
+     * Test that reading beyond the end fails without moving the position.
+     */
+    @Test
+    void testBounds ()
+    {
+        final BinaryReader reader = new BinaryReader (new byte [3], ByteOrder.BIG_ENDIAN);
+        assertThrows (EOFException.class, reader::readInt);
+        assertEquals (0, reader.getPosition ());
+        assertThrows (EOFException.class, () -> reader.seek (4));
+        assertThrows (EOFException.class, () -> reader.seek (-1));
+        assertThrows (EOFException.class, () -> reader.view (2, 2));
+        assertThrows (EOFException.class, () -> reader.readBytes (4));
+    }
+
+
+    /**
+     * Test mapping a part of a file.
+     *
+     * @throws IOException Could not write or map the file
+     */
+    @Test
+    void testMap () throws IOException
+    {
+        final Path file = Files.createTempFile ("test", ".bin");
+        try
+        {
+            Files.write (file, DATA);
+            final BinaryReader reader = BinaryReader.map (file, 6, 4, ByteOrder.BIG_ENDIAN);
+            assertEquals ("data", reader.readFourCC ());
+            assertEquals (14, BinaryReader.map (file, ByteOrder.BIG_ENDIAN).size ());
+            assertThrows (IOException.class, () -> BinaryReader.map (file, 10, 10, ByteOrder.BIG_ENDIAN));
+        }
+        finally
+        {
+            Files.delete (file);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.mossgrabers.tools.BufferPool;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Test for the pool of direct byte buffers.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestBufferPool
+{
+    /**
+     * Test that a released buffer is reused by another thread.
+     *
+     * @throws InterruptedException Interrupted while waiting for the other thread
+     */
+    @Test
+    void testReuse () throws InterruptedException
+    {
+        final BufferPool pool = new BufferPool (1024 * 1024, false);
+        final ByteBuffer buffer = pool.acquire (5000);
+        assertEquals (8192, buffer.capacity ());
+        assertEquals (5000, buffer.limit ());
+        pool.release (buffer);
+
+        final AtomicReference<ByteBuffer> reused = new AtomicReference<> ();
+        final Thread thread = new Thread ( () -> reused.set (pool.acquire (6000)));
+        thread.start ();
+        thread.join ();
+
+        assertSame (buffer, reused.get ());
+        assertEquals (6000, reused.get ().limit ());
+        assertEquals (1, pool.getAllocations ());
+        assertEquals (1, pool.getReuses ());
+    }
+
+
+    /**
+     * Test the number of pooled and used bytes.
+     */
+    @Test
+    void testAccounting ()
+    {
+        final BufferPool pool = new BufferPool (1024 * 1024, false);
+        final ByteBuffer small = pool.acquire (100);
+        final ByteBuffer large = pool.acquire (5 * 1024 * 1024);
+        assertEquals (4096 + 5 * 1024 * 1024, pool.getInUseBytes ());
+        assertEquals (0, pool.getPooledBytes ());
+
+        pool.release (small);
+        assertEquals (5 * 1024 * 1024, pool.getInUseBytes ());
+        assertEquals (4096, pool.getPooledBytes ());
+
+        // Buffers which are too large for pooling are dropped
+        pool.release (large);
+        assertEquals (0, pool.getInUseBytes ());
+        assertEquals (4096, pool.getPooledBytes ());
+
+        pool.clear ();
+        assertEquals (0, pool.getPooledBytes ());
+    }
+
+
+    /**
+     * Test that the shared pool does not exceed its maximum size.
+     */
+    @Test
+    void testMaximumPooledBytes ()
+    {
+        final BufferPool pool = new BufferPool (8192, false);
+        final ByteBuffer buffer1 = pool.acquire (8192);
+        final ByteBuffer buffer2 = pool.acquire (8192);
+        final ByteBuffer buffer3 = pool.acquire (8192);
+        pool.release (buffer1);
+        pool.release (buffer2);
+        pool.release (buffer3);
+        assertEquals (8192, pool.getPooledBytes ());
+        assertEquals (0, pool.getInUseBytes ());
+
+        // One buffer from the shared pool, one kept by this thread, one new
+        pool.acquire (8192);
+        pool.acquire (8192);
+        pool.acquire (8192);
+        assertEquals (4, pool.getAllocations ());
+        assertEquals (2, pool.getReuses ());
+    }
+
+
+    /**
+     * Test the leak, foreign buffer and double release detection of the debug mode.
+     */
+    @Test
+    void testDebug ()
+    {
+        final BufferPool pool = new BufferPool (1024 * 1024, true);
+        final ByteBuffer buffer = pool.acquire (100);
+        pool.acquire (100);
+        assertEquals (2, pool.getOutstandingAllocations ().size ());
+
+        pool.release (buffer);
+        assertEquals (1, pool.getOutstandingAllocations ().size ());
+        assertThrows (IllegalArgumentException.class, () -> pool.release (buffer));
+        assertThrows (IllegalArgumentException.class, () -> pool.release (ByteBuffer.allocateDirect (4096)));
+        assertEquals (4096, pool.getInUseBytes ());
+        assertEquals (4096, pool.getPooledBytes ());
+
+        // Without debug mode nothing is tracked
+        final BufferPool fastPool = new BufferPool (1024 * 1024, false);
+        fastPool.acquire (100);
+        assertTrue (fastPool.getOutstandingAllocations ().isEmpty ());
+    }
+}
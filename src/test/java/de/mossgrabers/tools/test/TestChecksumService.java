@@ -0,0 +1,108 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import de.mossgrabers.tools.ChecksumService;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+
+/**
+ * Test for the checksum service.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestChecksumService
+{
+    /** Large enough to be calculated in 3 segments of 64MB, which are combined afterwards. */
+    private static final long LARGE_FILE_SIZE = 2L * 64 * 1024 * 1024 + 12345;
+
+
+    /**
+     * Test the CRC32C of a small file and the comparison of checksums.
+     *
+     * @throws IOException Could not write or read the test file
+     */
+    @Test
+    void testCRC32C () throws IOException
+    {
+        final Path file = Files.createTempFile ("test", ".txt");
+        try
+        {
+            Files.writeString (file, "123456789");
+            final ChecksumService service = new ChecksumService (ChecksumService.Algorithm.CRC32C);
+            final ChecksumService.Checksum checksum = service.compute (file);
+            // The check value of CRC32C
+            assertEquals ("e3069283", checksum.toHexString ());
+            assertEquals (9, checksum.size ());
+
+            // The value is compared by its content
+            final ChecksumService.Checksum other = service.compute (file);
+            assertEquals (checksum, other);
+            assertEquals (checksum.hashCode (), other.hashCode ());
+            assertEquals (checksum.toString (), other.toString ());
+
+            Files.writeString (file, "123456780");
+            assertNotEquals (checksum, service.compute (file));
+        }
+        finally
+        {
+            Files.delete (file);
+        }
+    }
+
+
+    /**
+     * Test that the combined CRC32C of the segments of a large file is the same as the CRC32C of
+     * the whole file.
+     *
+     * @throws IOException Could not write or read the test file
+     */
+    @Test
+    void testSegmentedCRC32C () throws IOException
+    {
+        final Path file = Files.createTempFile ("test", ".bin");
+        try
+        {
+            // A sparse file with some data around the segment borders
+            try (final RandomAccessFile out = new RandomAccessFile (file.toFile (), "rw"))
+            {
+                out.setLength (LARGE_FILE_SIZE);
+                final long [] positions = { 0, 64L * 1024 * 1024 - 3, 128L * 1024 * 1024 - 1, LARGE_FILE_SIZE - 5 };
+                for (final long position: positions)
+                {
+                    out.seek (position);
+                    out.write (new byte [] { 1, 2, 3, 4, 5 });
+                }
+            }
+
+            final CRC32C expected = new CRC32C ();
+            try (final InputStream in = Files.newInputStream (file))
+            {
+                final byte [] buffer = new byte [1024 * 1024];
+                int length;
+                while ((length = in.read (buffer)) > 0)
+                    expected.update (buffer, 0, length);
+            }
+
+            final ChecksumService.Checksum checksum = new ChecksumService (ChecksumService.Algorithm.CRC32C).compute (file);
+            assertEquals (String.format ("%08x", Long.valueOf (expected.getValue ())), checksum.toHexString ());
+        }
+        finally
+        {
+            Files.delete (file);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.mossgrabers.tools.BinaryReader;
+import de.mossgrabers.tools.ChunkIndex;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+
+/**
+ * Test for the index of the chunks of RIFF and IFF files.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestChunkIndex
+{
+    /**
+     * Test scanning a WAV file with a nested LIST chunk which contains a chunk of odd size.
+     *
+     * @throws IOException Could not write or scan the test file
+     */
+    @Test
+    void testRIFF () throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate (74).order (ByteOrder.LITTLE_ENDIAN);
+        putHeader (buffer, "RIFF", 66);
+        putFourCC (buffer, "WAVE");
+        putHeader (buffer, "fmt ", 16);
+        buffer.putShort ((short) 1).putShort ((short) 2).putInt (44100).putInt (176400).putShort ((short) 4).putShort ((short) 16);
+        putHeader (buffer, "LIST", 18);
+        putFourCC (buffer, "INFO");
+        // The odd chunk is followed by a pad byte
+        putHeader (buffer, "INAM", 5);
+        buffer.put ("Test".getBytes (StandardCharsets.US_ASCII)).put ((byte) 0).put ((byte) 0);
+        putHeader (buffer, "data", 4);
+        buffer.putInt (0x12345678);
+
+        final Path file = write (buffer);
+        try
+        {
+            final ChunkIndex index = ChunkIndex.scan (file);
+            assertEquals (ByteOrder.LITTLE_ENDIAN, index.getOrder ());
+            assertEquals ("WAVE", index.getFormType ());
+
+            final List<ChunkIndex.Chunk> chunks = index.getChunks ();
+            assertEquals (5, chunks.size ());
+            assertChunk (chunks.get (0), "RIFF", 0, 66, 0);
+            assertChunk (chunks.get (1), "fmt ", 12, 16, 1);
+            assertChunk (chunks.get (2), "LIST", 36, 18, 1);
+            assertChunk (chunks.get (3), "INAM", 48, 5, 2);
+            assertChunk (chunks.get (4), "data", 62, 4, 1);
+            assertTrue (chunks.get (2).isContainer ());
+            assertFalse (chunks.get (3).isContainer ());
+
+            assertEquals (chunks.get (2), index.findContainer ("INFO"));
+            assertEquals (chunks.get (4), index.find ("data"));
+            assertNull (index.find ("cue "));
+            assertEquals (1, index.findAll ("INAM").size ());
+
+            final BinaryReader reader = index.mapPayload (index.find ("fmt "));
+            assertEquals (16, reader.size ());
+            assertEquals (1, reader.readShort ());
+            assertEquals (2, reader.readShort ());
+            assertEquals (44100, reader.readInt ());
+            assertEquals ("Test", index.mapPayload (index.find ("INAM")).readFixedString (5));
+            assertEquals (0x12345678, index.mapPayload (index.find ("data")).readInt ());
+        }
+        finally
+        {
+            Files.delete (file);
+        }
+    }
+
+
+    /**
+     * Test scanning a big-endian IFF file whose last chunk was truncated.
+     *
+     * @throws IOException Could not write or scan the test file
+     */
+    @Test
+    void testTruncatedIFF () throws IOException
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate (46).order (ByteOrder.BIG_ENDIAN);
+        putHeader (buffer, "FORM", 1000);
+        putFourCC (buffer, "AIFF");
+        putHeader (buffer, "COMM", 18);
+        buffer.putShort ((short) 1).putInt (100).putShort ((short) 16).put (new byte [10]);
+        // Only 4 of the announced 1000 bytes are present
+        putHeader (buffer, "SSND", 1000);
+
+        final Path file = write (buffer);
+        try
+        {
+            final ChunkIndex index = ChunkIndex.scan (file);
+            assertEquals (ByteOrder.BIG_ENDIAN, index.getOrder ());
+            assertEquals ("AIFF", index.getFormType ());
+            assertEquals (3, index.getChunks ().size ());
+            assertChunk (index.find ("COMM"), "COMM", 12, 18, 1);
+            assertChunk (index.find ("SSND"), "SSND", 38, 1000, 1);
+
+            final BinaryReader reader = index.mapPayload (index.find ("COMM"));
+            assertEquals (1, reader.readShort ());
+            assertEquals (100, reader.readInt ());
+            assertThrows (EOFException.class, () -> index.mapPayload (index.find ("SSND")));
+        }
+        finally
+        {
+            Files.delete (file);
+        }
+    }
+
+
+    /**
+     * Test that files which are not in the RIFF or IFF format are rejected.
+     *
+     * @throws IOException Could not write the test file
+     */
+    @Test
+    void testInvalidFiles () throws IOException
+    {
+        final Path file = Files.createTempFile ("test", ".bin");
+        try
+        {
+            Files.write (file, "RIFF".getBytes (StandardCharsets.US_ASCII));
+            assertThrows (EOFException.class, () -> ChunkIndex.scan (file));
+
+            Files.write (file, "Not a chunk file".getBytes (StandardCharsets.US_ASCII));
+            assertThrows (IOException.class, () -> ChunkIndex.scan (file));
+        }
+        finally
+        {
+            Files.delete (file);
+        }
+    }
+
+
+    private static void assertChunk (final ChunkIndex.Chunk chunk, final String id, final long offset, final long size, final int depth)
+    {
+        assertEquals (id, chunk.id ());
+        assertEquals (offset, chunk.offset ());
+        assertEquals (offset + 8, chunk.dataOffset ());
+        assertEquals (size, chunk.size ());
+        assertEquals (depth, chunk.depth ());
+    }
+
+
+    private static void putHeader (final ByteBuffer buffer, final String id, final int size)
+    {
+        putFourCC (buffer, id);
+        buffer.putInt (size);
+    }
+
+
+    private static void putFourCC (final ByteBuffer buffer, final String id)
+    {
+        buffer.put (id.getBytes (StandardCharsets.US_ASCII));
+    }
+
+
+    private static Path write (final ByteBuffer buffer) throws IOException
+    {
+        final Path file = Files.createTempFile ("test", ".chunk");
+        Files.write (file, buffer.array ());
+        return file;
+    }
+}
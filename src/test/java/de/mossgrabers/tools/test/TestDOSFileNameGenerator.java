@@ -0,0 +1,80 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.mossgrabers.tools.DOSFileNameGenerator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+
+/**
+ * Test for the DOS file name generator.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestDOSFileNameGenerator
+{
+    /**
+     * Test shortening, replacing characters and numbering of duplicates.
+     */
+    @Test
+    void testCreate ()
+    {
+        final DOSFileNameGenerator generator = new DOSFileNameGenerator ();
+        assertEquals ("PIANO_SO", generator.create ("Piano Sound"));
+        assertEquals ("PIANO_S2", generator.create ("Piano Sound"));
+        assertEquals ("PIANO_S3", generator.create ("piano_sounds"));
+        assertEquals ("PAD_", generator.create ("Pad*"));
+        assertEquals ("_A", generator.create ("Éa"));
+
+        for (int i = 4; i < 10; i++)
+            generator.create ("Piano Sound");
+        assertEquals ("PIANO_10", generator.create ("Piano Sound"));
+    }
+
+
+    /**
+     * Test that reserved names are skipped and that reset starts again.
+     */
+    @Test
+    void testReserve ()
+    {
+        final DOSFileNameGenerator generator = new DOSFileNameGenerator ();
+        generator.reserve ("KICK");
+        generator.reserve ("KICK3");
+        assertEquals ("KICK2", generator.create ("Kick"));
+        assertEquals ("KICK4", generator.create ("Kick"));
+
+        generator.reset ();
+        assertEquals ("KICK", generator.create ("Kick"));
+    }
+
+
+    /**
+     * Test that many similar names are unique and that the generator fails if no name is left.
+     */
+    @Test
+    void testLimits ()
+    {
+        final DOSFileNameGenerator generator = new DOSFileNameGenerator (8, DOSFileNameGenerator.DOS_CHARACTERS);
+        final Set<String> names = new HashSet<> ();
+        for (int i = 0; i < 5000; i++)
+            names.add (generator.create ("Sample"));
+        assertEquals (5000, names.size ());
+
+        final DOSFileNameGenerator shortGenerator = new DOSFileNameGenerator (2, "AB");
+        assertEquals ("AB", shortGenerator.create ("ab"));
+        for (int i = 2; i < 10; i++)
+            assertEquals ("A" + i, shortGenerator.create ("ab"));
+        assertThrows (IllegalStateException.class, () -> shortGenerator.create ("ab"));
+        assertThrows (IllegalArgumentException.class, () -> new DOSFileNameGenerator (1, "AB"));
+    }
+}
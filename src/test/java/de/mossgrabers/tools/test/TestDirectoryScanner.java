@@ -0,0 +1,71 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.mossgrabers.tools.DirectoryScanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+
+/**
+ * Test for the parallel directory scanner.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestDirectoryScanner
+{
+    /**
+     * Test that files in sub-directories and links to files are found but links to directories
+     * are not followed.
+     *
+     * @throws IOException Could not create or scan the test files
+     */
+    @Test
+    void testScan () throws IOException
+    {
+        final Path root = Files.createTempDirectory ("test");
+        try
+        {
+            final Path sub = Files.createDirectory (root.resolve ("sub"));
+            final Path file = Files.writeString (root.resolve ("a.wav"), "12345");
+            Files.writeString (sub.resolve ("b.WAV"), "1");
+            Files.writeString (sub.resolve ("c.txt"), "1");
+            Files.createSymbolicLink (root.resolve ("link.wav"), file);
+            Files.createSymbolicLink (root.resolve ("broken.wav"), root.resolve ("missing.wav"));
+            Files.createSymbolicLink (root.resolve ("linkedSub"), sub);
+
+            final Map<String, Long> found = new TreeMap<> ();
+            new DirectoryScanner (2, "wav").scan (root, (path, attributes) -> {
+                synchronized (found)
+                {
+                    found.put (root.relativize (path).toString ().replace ('\\', '/'), Long.valueOf (attributes.size ()));
+                }
+            }, () -> false);
+
+            // The link has the size of its target
+            assertEquals (Map.of ("a.wav", Long.valueOf (5), "link.wav", Long.valueOf (5), "sub/b.WAV", Long.valueOf (1)), found);
+        }
+        finally
+        {
+            try (final Stream<Path> paths = Files.walk (root))
+            {
+                final List<Path> all = paths.sorted (Comparator.reverseOrder ()).toList ();
+                for (final Path path: all)
+                    Files.delete (path);
+            }
+        }
+    }
+}
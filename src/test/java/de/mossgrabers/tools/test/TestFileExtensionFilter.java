@@ -0,0 +1,65 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.mossgrabers.tools.FileExtensionFilter;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+
+/**
+ * Test for the file extension filter.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestFileExtensionFilter
+{
+    /**
+     * Test matching the end of file names.
+     */
+    @Test
+    void testAccept ()
+    {
+        final FileExtensionFilter filter = new FileExtensionFilter ("wav", "aiff");
+        assertTrue (filter.accept ("Kick.wav"));
+        assertTrue (filter.accept ("Snare.WAV"));
+        assertTrue (filter.accept ("Pad.AiFf"));
+        assertTrue (filter.test (Path.of ("samples", "Kick.wav")));
+        assertFalse (filter.accept ("Kick.wave"));
+        assertFalse (filter.accept ("Kickwav"));
+        assertFalse (filter.accept ("wav"));
+    }
+
+
+    /**
+     * Test that a file name which consists only of the extension is accepted like the regular
+     * expression "(?i).*\.wav" does.
+     */
+    @Test
+    void testOnlyExtension ()
+    {
+        final FileExtensionFilter filter = new FileExtensionFilter ("wav");
+        assertTrue (filter.accept (".wav"));
+        assertFalse (filter.accept (".wa"));
+        assertFalse (filter.accept (""));
+    }
+
+
+    /**
+     * Test that all files are accepted if no extensions are given.
+     */
+    @Test
+    void testNoExtensions ()
+    {
+        final FileExtensionFilter filter = new FileExtensionFilter ();
+        assertTrue (filter.accept ("Kick.wav"));
+        assertTrue (filter.accept ("README"));
+    }
+}
@@ -0,0 +1,84 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.mossgrabers.tools.IntObjectMap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+
+/**
+ * Test for the map with primitive integer keys.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestIntObjectMap
+{
+    /**
+     * Test adding, replacing and removing entries.
+     */
+    @Test
+    void testPutAndRemove ()
+    {
+        final IntObjectMap<String> map = new IntObjectMap<> ();
+        assertTrue (map.isEmpty ());
+        assertNull (map.put (1, "a"));
+        assertNull (map.put (-7, "b"));
+        assertEquals ("a", map.put (1, "c"));
+        assertEquals (2, map.size ());
+        assertEquals ("c", map.get (1));
+        assertEquals ("x", map.getOrDefault (2, "x"));
+
+        assertEquals ("b", map.remove (-7));
+        assertNull (map.remove (-7));
+        assertFalse (map.containsKey (-7));
+        assertEquals ("{1=c}", map.toString ());
+        assertThrows (IllegalArgumentException.class, () -> map.put (3, null));
+
+        map.clear ();
+        assertTrue (map.isEmpty ());
+        assertNull (map.get (1));
+    }
+
+
+    /**
+     * Test that all entries stay reachable when entries are removed from long probe sequences,
+     * which wrap around the end of the table. The map must not grow during the test, otherwise the
+     * rehashing would clean up the table.
+     */
+    @Test
+    void testRemoveFromProbeSequences ()
+    {
+        final Random random = new Random (4711);
+        for (int round = 0; round < 200; round++)
+        {
+            final IntObjectMap<Integer> map = new IntObjectMap<> (60);
+            final Map<Integer, Integer> expected = new HashMap<> ();
+            for (int i = 0; i < 5000; i++)
+            {
+                final int key = random.nextInt (100);
+                if (random.nextBoolean () && expected.size () < 60)
+                    assertEquals (expected.put (Integer.valueOf (key), Integer.valueOf (i)), map.put (key, Integer.valueOf (i)));
+                else
+                    assertEquals (expected.remove (Integer.valueOf (key)), map.remove (key));
+            }
+
+            assertEquals (expected.size (), map.size ());
+            for (int key = 0; key < 100; key++)
+                assertEquals (expected.get (Integer.valueOf (key)), map.get (key), "Key " + key);
+            assertEquals (expected.size (), map.keys ().length);
+        }
+    }
+}
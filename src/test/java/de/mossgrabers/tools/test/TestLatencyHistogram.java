@@ -0,0 +1,143 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.mossgrabers.tools.LatencyHistogram;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+
+/**
+ * Test for the latency histogram.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestLatencyHistogram
+{
+    private static final long LARGE_VALUE = 1L << 40;
+
+
+    /**
+     * Test that the reported percentile is the upper bound of the bucket of a value, which is exact
+     * for small values and at most about 3% larger for all others.
+     */
+    @Test
+    void testBucketBounds ()
+    {
+        long value = 0;
+        while (value < LARGE_VALUE)
+        {
+            // The large value keeps the maximum from hiding the upper bound of the bucket
+            final LatencyHistogram histogram = new LatencyHistogram (1);
+            histogram.record (value);
+            histogram.record (LARGE_VALUE);
+            final long p50 = histogram.getP50 ();
+            if (value < 64)
+                assertEquals (value, p50);
+            else
+                assertTrue (p50 >= value && p50 <= value + value / 31, value + " reported as " + p50);
+
+            // The next value after the upper bound must be in the next bucket
+            histogram.reset ();
+            histogram.record (p50 + 1);
+            histogram.record (LARGE_VALUE);
+            assertTrue (histogram.getP50 () > p50, "Bucket of " + (p50 + 1) + " overlaps bucket of " + value);
+
+            value = value < 200 ? value + 1 : value + value / 7;
+        }
+    }
+
+
+    /**
+     * Test counting, sum, mean, maximum and percentiles.
+     */
+    @Test
+    void testStatistics ()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram ();
+        assertEquals (0, histogram.getP99 ());
+        assertEquals (0, histogram.getMean (), 0);
+
+        for (int i = 1; i <= 100; i++)
+            histogram.record (i);
+        histogram.record (-5);
+
+        assertEquals (101, histogram.getCount ());
+        assertEquals (5050, histogram.getSum ());
+        assertEquals (100, histogram.getMax ());
+        assertEquals (5050.0 / 101, histogram.getMean (), 0.0001);
+        assertEquals (0, histogram.getValueAtPercentile (0));
+        assertEquals (100, histogram.getValueAtPercentile (100));
+        assertTrue (histogram.getP50 () >= 50 && histogram.getP50 () <= 52);
+
+        // Values beyond the largest magnitude end up in the last bucket
+        histogram.record (Long.MAX_VALUE);
+        assertEquals (Long.MAX_VALUE, histogram.getMax ());
+        assertEquals (Long.MAX_VALUE, histogram.getValueAtPercentile (100));
+
+        histogram.reset ();
+        assertEquals (0, histogram.getCount ());
+        assertEquals (0, histogram.getMax ());
+    }
+
+
+    /**
+     * Test merging and recording from several threads.
+     *
+     * @throws InterruptedException Interrupted while waiting for the threads
+     */
+    @Test
+    void testMergeAndThreads () throws InterruptedException
+    {
+        final LatencyHistogram histogram = new LatencyHistogram (4);
+        final Thread [] threads = new Thread [4];
+        for (int t = 0; t < threads.length; t++)
+        {
+            threads[t] = new Thread ( () -> {
+                for (int i = 0; i < 10_000; i++)
+                    histogram.record (1000);
+            });
+            threads[t].start ();
+        }
+        for (final Thread thread: threads)
+            thread.join ();
+        assertEquals (40_000, histogram.getCount ());
+        assertEquals (40_000_000, histogram.getSum ());
+
+        final LatencyHistogram other = new LatencyHistogram (1);
+        other.record (5);
+        other.merge (histogram);
+        assertEquals (40_001, other.getCount ());
+        assertEquals (1000, other.getMax ());
+        assertEquals (5, other.getValueAtPercentile (0));
+    }
+
+
+    /**
+     * Test that the formatting does not depend on the default locale.
+     */
+    @Test
+    void testFormatNanos ()
+    {
+        final LatencyHistogram histogram = new LatencyHistogram (1);
+        histogram.record (1_500_000);
+
+        final Locale defaultLocale = Locale.getDefault ();
+        try
+        {
+            Locale.setDefault (Locale.GERMANY);
+            assertEquals ("count=1, p50=1.500ms, p99=1.500ms, p99.9=1.500ms, max=1.500ms", histogram.formatNanos ());
+        }
+        finally
+        {
+            Locale.setDefault (defaultLocale);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.mossgrabers.tools.ui.control.loggerbox.LogRecord;
+import de.mossgrabers.tools.ui.control.loggerbox.LoggerBoxLevel;
+import de.mossgrabers.tools.ui.control.loggerbox.LoggerBoxLog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Test for the ring buffer of the logger box.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestLoggerBoxLog
+{
+    private static final int THREADS = 4;
+    private static final int RECORDS = 5000;
+
+
+    /**
+     * Test that records are handed over in the order in which they were added and that a combined
+     * record replaces the previous one.
+     */
+    @Test
+    void testOrderAndCombine ()
+    {
+        final LoggerBoxLog log = new LoggerBoxLog (10);
+        log.offer (new LogRecord (LoggerBoxLevel.INFO, "A", false));
+        log.offer (new LogRecord (LoggerBoxLevel.INFO, "B", false));
+        log.offer (new LogRecord (LoggerBoxLevel.INFO, "C", true));
+
+        final List<LogRecord> records = new ArrayList<> ();
+        log.drainTo (records);
+        assertEquals (List.of ("A", "BC"), getMessages (records));
+
+        // The first record of an empty log has nothing to combine with
+        final LoggerBoxLog empty = new LoggerBoxLog (10);
+        empty.offer (new LogRecord (LoggerBoxLevel.INFO, "X", true));
+        records.clear ();
+        empty.drainTo (records);
+        assertEquals (List.of ("X"), getMessages (records));
+    }
+
+
+    /**
+     * Test that records are dropped if the log is full and accepted again after draining.
+     */
+    @Test
+    void testFullLog ()
+    {
+        final LoggerBoxLog log = new LoggerBoxLog (3);
+        for (int i = 0; i < 5; i++)
+            log.offer (new LogRecord (LoggerBoxLevel.INFO, Integer.toString (i), false));
+        // A record which should be combined is dropped as well
+        log.offer (new LogRecord (LoggerBoxLevel.INFO, "x", true));
+
+        final List<LogRecord> records = new ArrayList<> ();
+        log.drainTo (records);
+        assertEquals (List.of ("0", "1", "2"), getMessages (records));
+
+        for (int i = 5; i < 10; i++)
+            log.offer (new LogRecord (LoggerBoxLevel.INFO, Integer.toString (i), false));
+        records.clear ();
+        log.drainTo (records);
+        assertEquals (List.of ("5", "6", "7"), getMessages (records));
+    }
+
+
+    /**
+     * Test several producers which add records and records to combine with the previous one while
+     * the consumer drains the log like the LoggerBox does. Each text must be shown exactly once.
+     *
+     * @throws InterruptedException Interrupted while waiting for the threads
+     */
+    @Test
+    void testConcurrentProducers () throws InterruptedException
+    {
+        final LoggerBoxLog log = new LoggerBoxLog (THREADS * RECORDS * 2);
+        final CountDownLatch start = new CountDownLatch (1);
+        final Thread [] producers = new Thread [THREADS];
+        for (int t = 0; t < THREADS; t++)
+        {
+            final int thread = t;
+            producers[t] = new Thread ( () -> {
+                try
+                {
+                    start.await ();
+                }
+                catch (final InterruptedException _)
+                {
+                    return;
+                }
+                for (int i = 0; i < RECORDS; i++)
+                {
+                    log.offer (new LogRecord (LoggerBoxLevel.INFO, "<" + thread + "." + i + "|", false));
+                    log.offer (new LogRecord (LoggerBoxLevel.INFO, "<" + thread + "." + i + "+", true));
+                }
+            });
+            producers[t].start ();
+        }
+
+        final List<LogRecord> shown = new ArrayList<> ();
+        final AtomicBoolean isDone = new AtomicBoolean ();
+        final Thread consumer = new Thread ( () -> {
+            while (!isDone.get ())
+                drain (log, shown);
+            drain (log, shown);
+        });
+        consumer.start ();
+        start.countDown ();
+        for (final Thread producer: producers)
+            producer.join ();
+        isDone.set (true);
+        consumer.join ();
+
+        final StringBuilder text = new StringBuilder ();
+        for (final LogRecord logRecord: shown)
+            text.append (logRecord.getMessage ());
+        final String [] parts = text.substring (1).split ("<");
+        assertEquals (THREADS * RECORDS * 2, parts.length);
+        final boolean [] seen = new boolean [THREADS * RECORDS * 2];
+        for (final String part: parts)
+        {
+            final int dot = part.indexOf ('.');
+            final int index = (Integer.parseInt (part.substring (0, dot)) * RECORDS + Integer.parseInt (part.substring (dot + 1, part.length () - 1))) * 2 + (part.endsWith ("+") ? 1 : 0);
+            assertTrue (!seen[index], "Shown twice: " + part);
+            seen[index] = true;
+        }
+    }
+
+
+    /**
+     * Drains the log in the same way as the LoggerBox.
+     *
+     * @param log The log
+     * @param shown The shown records
+     */
+    private static void drain (final LoggerBoxLog log, final List<LogRecord> shown)
+    {
+        final List<LogRecord> newItems = new ArrayList<> ();
+        log.drainTo (newItems);
+        if (!shown.isEmpty () && shown.getLast ().isMarkedForRemoval ())
+            shown.removeLast ();
+        shown.addAll (newItems);
+    }
+
+
+    private static List<String> getMessages (final List<LogRecord> records)
+    {
+        final List<String> messages = new ArrayList<> ();
+        for (final LogRecord logRecord: records)
+            messages.add (logRecord.getMessage ());
+        return messages;
+    }
+}
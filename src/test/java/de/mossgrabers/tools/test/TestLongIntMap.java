@@ -0,0 +1,91 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.mossgrabers.tools.LongIntMap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+
+/**
+ * Test for the map with primitive long keys and integer values.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestLongIntMap
+{
+    /**
+     * Test adding, counting and removing entries.
+     */
+    @Test
+    void testPutAndRemove ()
+    {
+        final LongIntMap map = new LongIntMap (16, Integer.MIN_VALUE);
+        assertEquals (Integer.MIN_VALUE, map.get (5));
+        assertEquals (Integer.MIN_VALUE, map.put (5, 0));
+        assertEquals (0, map.put (5, 1));
+        assertEquals (3, map.addTo (5, 2));
+        assertEquals (7, map.addTo (Long.MAX_VALUE, 7));
+        assertEquals (2, map.size ());
+
+        assertEquals (3, map.remove (5));
+        assertEquals (Integer.MIN_VALUE, map.remove (5));
+        assertFalse (map.containsKey (5));
+        assertTrue (map.containsKey (Long.MAX_VALUE));
+
+        map.clear ();
+        assertTrue (map.isEmpty ());
+        assertEquals (-1, new LongIntMap ().getMissingValue ());
+    }
+
+
+    /**
+     * Test that all entries stay reachable when entries are removed from long probe sequences,
+     * which wrap around the end of the table. The map must not grow during the test, otherwise the
+     * rehashing would clean up the table.
+     */
+    @Test
+    void testRemoveFromProbeSequences ()
+    {
+        final Random random = new Random (4711);
+        for (int round = 0; round < 200; round++)
+        {
+            final LongIntMap map = new LongIntMap (60, -1);
+            final Map<Long, Integer> expected = new HashMap<> ();
+            for (int i = 0; i < 5000; i++)
+            {
+                // Keys which only differ in the upper bits
+                final long key = (long) random.nextInt (100) << 40;
+                if (random.nextBoolean () && expected.size () < 60)
+                {
+                    final Integer previous = expected.put (Long.valueOf (key), Integer.valueOf (i));
+                    assertEquals (previous == null ? -1 : previous.intValue (), map.put (key, i));
+                }
+                else
+                {
+                    final Integer removed = expected.remove (Long.valueOf (key));
+                    assertEquals (removed == null ? -1 : removed.intValue (), map.remove (key));
+                }
+            }
+
+            assertEquals (expected.size (), map.size ());
+            for (int i = 0; i < 100; i++)
+            {
+                final long key = (long) i << 40;
+                final Integer value = expected.get (Long.valueOf (key));
+                assertEquals (value == null ? -1 : value.intValue (), map.get (key), "Key " + key);
+            }
+            assertEquals (expected.size (), map.keys ().length);
+        }
+    }
+}
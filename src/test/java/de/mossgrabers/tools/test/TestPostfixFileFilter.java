@@ -0,0 +1,63 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.mossgrabers.tools.ui.PostfixFileFilter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * Test for the Swing file filter.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestPostfixFileFilter
+{
+    /**
+     * Test that directories and files with matching endings are accepted.
+     */
+    @Test
+    void testAccept ()
+    {
+        final PostfixFileFilter filter = new PostfixFileFilter ("Audio", "wav", "aiff");
+        assertEquals ("Audio (.wav, .aiff)", filter.getDescription ());
+        assertTrue (filter.accept (new File ("Kick.WAV")));
+        assertTrue (filter.accept (new File (".wav")));
+        assertFalse (filter.accept (new File ("Kick.mp3")));
+        assertTrue (filter.accept (new File (System.getProperty ("java.io.tmpdir"))));
+    }
+
+
+    /**
+     * Test that only directories are accepted if no endings are given.
+     *
+     * @throws IOException Could not create the test file
+     */
+    @Test
+    void testNoEndings () throws IOException
+    {
+        final PostfixFileFilter filter = new PostfixFileFilter ("Folders", false);
+        final Path file = Files.createTempFile ("test", ".wav");
+        try
+        {
+            assertFalse (filter.accept (file.toFile ()));
+            assertTrue (filter.accept (file.getParent ().toFile ()));
+        }
+        finally
+        {
+            Files.delete (file);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+// Written by Jürgen Moßgraber - mossgrabers.de
+// (c) 2019-2026
+// Licensed under LGPLv3 - http://www.gnu.org/licenses/lgpl-3.0.txt
+
+package de.mossgrabers.tools.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.mossgrabers.tools.StringPool;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Test for the string pool.
+ *
+ * @author J&uuml;rgen Mo&szlig;graber
+ */
+class TestStringPool
+{
+    /**
+     * Test that equal strings are replaced by the pooled instance.
+     */
+    @Test
+    void testDeduplication ()
+    {
+        final StringPool pool = new StringPool (1000);
+        assertEquals (1024, pool.getCapacity ());
+
+        final String piano = new String ("Piano");
+        final String duplicate = new String ("Piano");
+        assertNotSame (piano, duplicate);
+        assertSame (piano, pool.get (piano));
+        assertSame (piano, pool.get (duplicate));
+        assertSame (piano, pool.get (piano));
+        assertNull (pool.get (null));
+
+        assertEquals (1, pool.getMisses ());
+        assertEquals (2, pool.getHits ());
+        assertEquals (2 / 3.0, pool.getHitRate (), 0.0001);
+        // Only the duplicate instance saved memory
+        assertEquals (40 + 5, pool.getSavedBytes ());
+
+        pool.resetStatistics ();
+        assertEquals (0, pool.getHits ());
+        assertEquals (0, pool.getHitRate (), 0);
+
+        pool.clear ();
+        assertSame (duplicate, pool.get (duplicate));
+    }
+
+
+    /**
+     * Test that a newer string replaces an older one in the same slot.
+     */
+    @Test
+    void testReplacement ()
+    {
+        final StringPool pool = new StringPool (1);
+        final String bass = new String ("Bass");
+        final String drums = new String ("Drums");
+        pool.get (bass);
+        pool.get (drums);
+        assertSame (drums, pool.get (new String ("Drums")));
+        assertNotSame (bass, pool.get (new String ("Bass")));
+    }
+
+
+    /**
+     * Test replacing all strings of an array.
+     */
+    @Test
+    void testGetAll ()
+    {
+        final StringPool pool = new StringPool (16);
+        final String tag = pool.get ("Lead");
+        final String [] texts = pool.getAll (new String [] { new String ("Lead"), null });
+        assertArrayEquals (new String [] { "Lead", null }, texts);
+        assertSame (tag, texts[0]);
+
+        assertThrows (IllegalArgumentException.class, () -> new StringPool (0));
+    }
+}
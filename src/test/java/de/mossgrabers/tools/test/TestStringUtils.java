@@ -6,10 +6,19 @@ package de.mossgrabers.tools.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import de.mossgrabers.tools.NaturalOrderComparator;
 import de.mossgrabers.tools.StringUtils;
+import de.mossgrabers.tools.TextTableWriter;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 
 /**
  * Test for padding utilities.
@@ -29,4 +38,157 @@ class TestStringUtils
     {
         assertEquals (PADDED_RESULT, StringUtils.padLeftSpaces ("123456", 4));
     }
+
+
+    /**
+     * Test padding and truncation into a string builder.
+     */
+    @Test
+    void testAppendPadding ()
+    {
+        final StringBuilder sb = new StringBuilder ();
+        StringUtils.appendLeftPadded (sb, "ab", 4).append ('|');
+        StringUtils.appendRightPadded (sb, "abcdef", 4).append ('|');
+        StringUtils.appendCentered (sb, "ab", 5).append ('|');
+        StringUtils.appendTruncated (sb, "abcdef", 5, "..");
+        assertEquals ("  ab|abcd| ab  |abc..", sb.toString ());
+
+        assertEquals ("abc  ", StringUtils.rightPadSpaces ("abc", 5));
+        assertEquals ("ab", StringUtils.rightPadSpaces ("abc", 2));
+        assertEquals (300, StringUtils.appendSpaces (new StringBuilder (), 300).length ());
+    }
+
+
+    /**
+     * Test the output of the table writer.
+     *
+     * @throws IOException Could not write the table
+     */
+    @Test
+    void testTableWriter () throws IOException
+    {
+        final StringBuilder sb = new StringBuilder ();
+        final TextTableWriter writer = new TextTableWriter (sb, 6, 3);
+        writer.setAlignment (1, TextTableWriter.Alignment.RIGHT);
+        writer.writeRow ("Name", "No");
+        writer.writeSeparator ('-');
+        writer.writeRow ("Piano", "12");
+        writer.writeRow ("Strings 2", "1234");
+        assertEquals ("Name    No\n------ ---\nPiano   12\nString 123\n", sb.toString ());
+    }
+
+
+    /**
+     * Test decoding of zero terminated text fields.
+     */
+    @Test
+    void testZeroTerminated ()
+    {
+        final byte [] data = "XXName\0garbageYY".getBytes (StandardCharsets.ISO_8859_1);
+        assertEquals ("Name", StringUtils.decodeZeroTerminated (data, 2, 13, StandardCharsets.ISO_8859_1));
+        assertEquals ("Na", StringUtils.decodeZeroTerminatedASCII (data, 2, 2));
+        assertEquals ("", StringUtils.decodeZeroTerminatedASCII (data, 6, 4));
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect (data.length).put (data);
+        assertEquals ("Name", StringUtils.decodeZeroTerminated (direct, 2, 13, StandardCharsets.US_ASCII));
+
+        final byte [] utf16 = "Ab\0c".getBytes (StandardCharsets.UTF_16LE);
+        assertEquals ("Ab", StringUtils.decodeZeroTerminated (utf16, 0, utf16.length, StandardCharsets.UTF_16LE));
+        assertEquals ("Ab", StringUtils.decodeZeroTerminated (ByteBuffer.allocateDirect (utf16.length).put (utf16), 0, utf16.length, StandardCharsets.UTF_16LE));
+
+        assertEquals ("abc", StringUtils.removeCharactersAfterZero ("abc\0def"));
+        assertEquals ("", StringUtils.removeCharactersAfterZero ("\0def"));
+    }
+
+
+    /**
+     * Test the common prefix of several strings and grouping by prefix.
+     */
+    @Test
+    void testCommonPrefix ()
+    {
+        assertEquals ("Pia", StringUtils.getCommonPrefix ("Piano", "Piatti"));
+        assertEquals ("Piano ", StringUtils.getCommonPrefix (List.of ("Piano C1", "Piano D1", "Piano E2")));
+        assertEquals ("", StringUtils.getCommonPrefix (List.of ("Piano", "Strings")));
+        assertEquals ("", StringUtils.getCommonPrefix (List.of ()));
+
+        final Map<String, List<String>> groups = StringUtils.groupByPrefix (List.of ("Piano C1", "Strings A", "Piano D1", "Pi", "Strings B"), 3);
+        assertEquals (List.of ("Piano ", "Strings ", "Pi"), List.copyOf (groups.keySet ()));
+        assertEquals (List.of ("Piano C1", "Piano D1"), groups.get ("Piano "));
+        assertEquals (List.of ("Pi"), groups.get ("Pi"));
+    }
+
+
+    /**
+     * Test sorting in natural order.
+     */
+    @Test
+    void testNaturalOrder ()
+    {
+        final List<String> names = new ArrayList<> (List.of ("Piano 10", "piano 2", "Piano 1b", "Ärger", "Piano 02a", "Bass", "Piano"));
+        StringUtils.sortNatural (names);
+        assertEquals (List.of ("Ärger", "Bass", "Piano", "Piano 1b", "piano 2", "Piano 02a", "Piano 10"), names);
+
+        final List<String> copy = new ArrayList<> (List.of ("Piano 10", "piano 2", "Piano 1b", "Ärger", "Piano 02a", "Bass", "Piano"));
+        copy.sort (NaturalOrderComparator.INSTANCE);
+        assertEquals (names, copy);
+    }
+
+
+    /**
+     * Test that the encoded length of a number cannot be confused with punctuation.
+     */
+    @Test
+    void testNaturalOrderPunctuation ()
+    {
+        // In ASCII all digits are ordered before ':', '<' and '?'
+        assertNaturalOrder (List.of ("a1234567890", "a:", "a<b", "a?"), List.of ("a?", "a:", "a<b", "a1234567890"));
+        assertNaturalOrder (List.of ("Take 123456789012 ", "Take :"), List.of ("Take :", "Take 123456789012 "));
+    }
+
+
+    /**
+     * Test numbers with more than 15 digits.
+     */
+    @Test
+    void testNaturalOrderLongNumbers ()
+    {
+        assertNaturalOrder (List.of ("x 999999999999999", "x 1000000000000000", "x 9999999999999999", "x 12345678901234567890"), List.of ("x 12345678901234567890", "x 9999999999999999", "x 1000000000000000", "x 999999999999999"));
+        assertNaturalOrder (List.of ("x 0", "x 00001", "x 9", "x 0000000000000000000000010"), List.of ("x 0000000000000000000000010", "x 9", "x 00001", "x 0"));
+    }
+
+
+    /**
+     * Test that texts with the same sort key are ordered the same way independent of the input
+     * order.
+     */
+    @Test
+    void testNaturalOrderTies ()
+    {
+        assertNaturalOrder (List.of ("Piano 02", "Piano 2", "piano 2"), List.of ("piano 2", "Piano 2", "Piano 02"));
+        assertNaturalOrder (List.of ("Piano 02", "Piano 2", "piano 2"), List.of ("Piano 2", "piano 2", "Piano 02"));
+    }
+
+
+    /**
+     * Test that characters which are replaced by several characters are compared correctly with
+     * numbers and texts which contain the replacement.
+     */
+    @Test
+    void testNaturalOrderReplacements ()
+    {
+        assertNaturalOrder (List.of ("Äpfel 2", "Aepfel 10", "Apfel", "Mass 3", "Maß 3"), List.of ("Maß 3", "Apfel", "Mass 3", "Aepfel 10", "Äpfel 2"));
+    }
+
+
+    private static void assertNaturalOrder (final List<String> expected, final List<String> input)
+    {
+        final List<String> sorted = new ArrayList<> (input);
+        StringUtils.sortNatural (sorted);
+        assertEquals (expected, sorted);
+
+        final List<String> compared = new ArrayList<> (input);
+        compared.sort (NaturalOrderComparator.INSTANCE);
+        assertEquals (expected, compared);
+    }
 }